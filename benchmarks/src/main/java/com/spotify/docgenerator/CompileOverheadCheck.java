@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * Compiles a generated source tree with and without {@link JacksonJerseyAnnotationProcessor},
+ * reports what the processor adds in wall time and heap allocation, and fails if either goes
+ * over budget.  Both are given as a percentage of the compile without the processor.
+ *
+ * Timings vary too much between machines for this to guard a shared build, so it is a tool to
+ * run by hand, on one machine, before and after a change.
+ *
+ * Configured through system properties, see {@link #main(String[])}.
+ */
+public class CompileOverheadCheck {
+
+  private static final String PREFIX = "docgenerator.budget.";
+
+  private final SyntheticTree tree;
+
+  private CompileOverheadCheck(final SyntheticTree tree) {
+    this.tree = tree;
+  }
+
+  /**
+   * The properties, all prefixed with {@code docgenerator.budget.}, are {@code endpoints},
+   * {@code transferClasses}, {@code genericDepth} and {@code enums} for the shape of the
+   * generated tree, {@code warmups} and {@code rounds} for how often to compile it, and
+   * {@code maxTimeOverhead} and {@code maxHeapOverhead} for the budget.
+   */
+  public static void main(final String[] args) throws IOException {
+    final int maxTimeOverhead;
+    final int maxHeapOverhead;
+    final Result without;
+    final Result with;
+    try (final SyntheticTree tree = new SyntheticTree(PREFIX)) {
+      final int warmups = tree.property("warmups", 3);
+      final int rounds = tree.property("rounds", 5);
+      maxTimeOverhead = tree.property("maxTimeOverhead", 60);
+      maxHeapOverhead = tree.property("maxHeapOverhead", 150);
+      final CompileOverheadCheck check = new CompileOverheadCheck(tree);
+      for (int i = 0; i < warmups; i++) {
+        check.compile(false);
+        check.compile(true);
+      }
+      // Alternate between the two, so drift in the JVM affects both alike
+      final long[] timesWithout = new long[rounds];
+      final long[] timesWith = new long[rounds];
+      final long[] bytesWithout = new long[rounds];
+      final long[] bytesWith = new long[rounds];
+      for (int i = 0; i < rounds; i++) {
+        final Result roundWithout = check.compile(false);
+        timesWithout[i] = roundWithout.nanos;
+        bytesWithout[i] = roundWithout.allocatedBytes;
+        final Result roundWith = check.compile(true);
+        timesWith[i] = roundWith.nanos;
+        bytesWith[i] = roundWith.allocatedBytes;
+      }
+      without = new Result(median(timesWithout), median(bytesWithout));
+      with = new Result(median(timesWith), median(bytesWith));
+    }
+
+    final long timeOverhead = percentage(with.nanos - without.nanos, without.nanos);
+    System.out.printf("compile time: %d ms without the processor, %d ms with it, %+d%%%n",
+                      without.nanos / 1000000, with.nanos / 1000000, timeOverhead);
+    final boolean timeOverBudget = timeOverhead > maxTimeOverhead;
+
+    boolean heapOverBudget = false;
+    if (without.allocatedBytes >= 0) {
+      final long heapOverhead = percentage(with.allocatedBytes - without.allocatedBytes,
+                                           without.allocatedBytes);
+      System.out.printf("heap allocated: %d MB without the processor, %d MB with it, %+d%%%n",
+                        without.allocatedBytes >> 20, with.allocatedBytes >> 20, heapOverhead);
+      heapOverBudget = heapOverhead > maxHeapOverhead;
+    } else {
+      System.out.println("heap allocated: not measurable on this JVM");
+    }
+
+    if (timeOverBudget || heapOverBudget) {
+      throw new IllegalStateException(String.format(
+          "annotation processor overhead over budget (%d%% time, %d%% heap)",
+          maxTimeOverhead, maxHeapOverhead));
+    }
+  }
+
+  private Result compile(final boolean withProcessor) throws IOException {
+    System.gc();
+    final long bytesBefore = allocatedBytes();
+    final long start = System.nanoTime();
+    tree.compile(tree.getSources(), tree.getOutputDir(), ImmutableList.<String>of(),
+                 withProcessor ? new JacksonJerseyAnnotationProcessor() : null);
+    final long nanos = System.nanoTime() - start;
+    final long bytesAfter = allocatedBytes();
+    return new Result(nanos, (bytesBefore < 0) ? -1 : bytesAfter - bytesBefore);
+  }
+
+  /**
+   * Bytes allocated by this thread so far, which is where the compiler runs, or -1 if the JVM
+   * can't tell.
+   */
+  private static long allocatedBytes() {
+    final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      final com.sun.management.ThreadMXBean hotspotThreads =
+          (com.sun.management.ThreadMXBean) threads;
+      if (hotspotThreads.isThreadAllocatedMemorySupported()
+          && hotspotThreads.isThreadAllocatedMemoryEnabled()) {
+        return hotspotThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
+
+  private static long median(final long[] values) {
+    final long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2];
+  }
+
+  private static long percentage(final long part, final long whole) {
+    return (whole == 0) ? 0 : part * 100 / whole;
+  }
+
+  private static class Result {
+    private final long nanos;
+    private final long allocatedBytes;
+
+    private Result(final long nanos, final long allocatedBytes) {
+      this.nanos = nanos;
+      this.allocatedBytes = allocatedBytes;
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.io.Files;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.fasterxml.jackson.databind.MapperFeature.SORT_PROPERTIES_ALPHABETICALLY;
+import static com.fasterxml.jackson.databind.SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS;
+
+/**
+ * Writing the descriptor files the way the processor does, and reading them back the way the
+ * report does, from mapped files, in either format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class DescriptorBenchmark {
+
+  // Configured like the one in the processor.
+  private static final ObjectWriter WRITER = new ObjectMapper()
+      .setSerializationInclusion(JsonInclude.Include.NON_EMPTY)
+      .configure(SORT_PROPERTIES_ALPHABETICALLY, true)
+      .configure(ORDER_MAP_ENTRIES_BY_KEYS, true)
+      .writer();
+
+  @Param({ "10", "100", "1000" })
+  public int endpoints;
+
+  @Param({ "10", "100", "1000" })
+  public int transferClasses;
+
+  @Param({ "json", "binary" })
+  public String format;
+
+  private List<ResourceMethod> resourceMethods;
+  private Map<String, TransferClass> transferClassMap;
+  private File resourceMethodFile;
+  private File transferClassFile;
+
+  @Setup
+  public void setUp() throws IOException {
+    final SyntheticApi api = new SyntheticApi(endpoints, transferClasses);
+    resourceMethods = api.resourceMethods();
+    transferClassMap = api.transferClasses();
+    resourceMethodFile = File.createTempFile("RESTEndpoints", "");
+    Files.write(writeResourceMethods(), resourceMethodFile);
+    transferClassFile = File.createTempFile("JSONClasses", "");
+    Files.write(writeTransferClasses(), transferClassFile);
+  }
+
+  @TearDown
+  public void tearDown() {
+    // Mappings may keep the files open on some platforms, so this is best effort
+    resourceMethodFile.delete();
+    transferClassFile.delete();
+  }
+
+  @Benchmark
+  public byte[] writeResourceMethods() throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    if (isBinary()) {
+      final BinaryDescriptorWriter writer = BinaryDescriptorWriter.forResourceMethods();
+      for (final ResourceMethod method : resourceMethods) {
+        writer.writeResourceMethod(method);
+      }
+      writer.writeTo(out);
+    } else {
+      WRITER.writeValue(out, resourceMethods);
+    }
+    return out.toByteArray();
+  }
+
+  @Benchmark
+  public byte[] writeTransferClasses() throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    if (isBinary()) {
+      final BinaryDescriptorWriter writer = BinaryDescriptorWriter.forTransferClasses();
+      for (final Map.Entry<String, TransferClass> entry : transferClassMap.entrySet()) {
+        writer.writeTransferClass(entry.getKey(), entry.getValue());
+      }
+      writer.writeTo(out);
+    } else {
+      WRITER.writeValue(out, transferClassMap);
+    }
+    return out.toByteArray();
+  }
+
+  @Benchmark
+  public List<ResourceMethod> readResourceMethods() throws IOException {
+    return DescriptorLoader.readResourceMethods(
+        DescriptorLoader.map(resourceMethodFile.getPath()));
+  }
+
+  @Benchmark
+  public Map<String, TransferClass> readTransferClasses() throws IOException {
+    return DescriptorLoader.readTransferClasses(
+        DescriptorLoader.map(transferClassFile.getPath()));
+  }
+
+  private boolean isBinary() {
+    return format.equals("binary");
+  }
+}
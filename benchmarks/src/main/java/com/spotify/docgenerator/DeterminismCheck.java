@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a generated source tree with {@link JacksonJerseyAnnotationProcessor} twice, with the
+ * source files in opposite orders, and fails unless the processor writes the same bytes both
+ * times.  This is checked for the default output, {@code -Ashards}, {@code -Aformat=binary} and
+ * {@code -Aincremental}.  With {@code -Aincremental}, every third file is then compiled again on
+ * its own, so the output is merged from fresh and stored fragments.
+ *
+ * Besides the {@link SyntheticApi}, the tree has resource classes in a package of their own that
+ * all share a path and request method, so that their endpoints tie in {@link EndpointOrdering}.
+ *
+ * Configured through system properties, see {@link #main(String[])}.
+ */
+public class DeterminismCheck {
+
+  private static final String PREFIX = "docgenerator.determinism.";
+  private static final String ALIAS_PACKAGE = SyntheticApi.PACKAGE + ".aliases";
+  private static final String INCREMENTAL = "-Aincremental";
+
+  private static final List<List<String>> MODES = ImmutableList.<List<String>>of(
+      ImmutableList.<String>of(),
+      ImmutableList.of("-Ashards"),
+      ImmutableList.of("-Aformat=binary"),
+      ImmutableList.of(INCREMENTAL));
+
+  private final SyntheticTree tree;
+
+  private DeterminismCheck(final SyntheticTree tree) {
+    this.tree = tree;
+  }
+
+  /**
+   * The properties, all prefixed with {@code docgenerator.determinism.}, are {@code endpoints},
+   * {@code transferClasses}, {@code genericDepth} and {@code enums} for the shape of the
+   * generated tree, and {@code aliases} for the number of resource classes sharing a path.
+   */
+  public static void main(final String[] args) throws IOException {
+    final List<String> differences = Lists.newArrayList();
+    try (final SyntheticTree tree = new SyntheticTree(PREFIX)) {
+      final int aliases = tree.property("aliases", 20);
+      for (int i = 0; i < aliases; i++) {
+        tree.addSource(ALIAS_PACKAGE, "Alias" + i, aliasSource(i));
+      }
+      final DeterminismCheck check = new DeterminismCheck(tree);
+      for (final List<String> options : MODES) {
+        final String mode = options.isEmpty() ? "default" : Joiner.on(' ').join(options);
+        final List<String> modeDifferences = check.compare(mode, options);
+        System.out.printf("%s: %s%n", mode,
+                          modeDifferences.isEmpty() ? "same output" : "output differs");
+        differences.addAll(modeDifferences);
+      }
+    }
+
+    if (!differences.isEmpty()) {
+      throw new IllegalStateException("annotation processor output depends on source order:\n"
+                                      + Joiner.on('\n').join(differences));
+    }
+  }
+
+  /**
+   * Compile the sources forwards and backwards with the options, and describe every resource
+   * the two compiles wrote differently.
+   */
+  private List<String> compare(final String mode, final List<String> options)
+      throws IOException {
+    final List<File> sources = tree.getSources();
+    final File forwardDir = new File(tree.getOutputDir(), "forward");
+    final File reverseDir = new File(tree.getOutputDir(), "reverse");
+    final Map<String, byte[]> forward = compile(sources, forwardDir, options);
+    final Map<String, byte[]> reverse = compile(Lists.reverse(sources), reverseDir, options);
+    InProcessCompiler.deleteRecursively(forwardDir);
+    InProcessCompiler.deleteRecursively(reverseDir);
+
+    final List<String> differences = Lists.newArrayList();
+    if (forward.isEmpty()) {
+      differences.add(mode + ": no resources written");
+    }
+    for (final String name : Sets.union(forward.keySet(), reverse.keySet())) {
+      if (!forward.containsKey(name) || !reverse.containsKey(name)) {
+        differences.add(mode + ": " + name + " written by one compile only");
+      } else if (!Arrays.equals(forward.get(name), reverse.get(name))) {
+        differences.add(mode + ": " + name + " differs");
+      }
+    }
+    return differences;
+  }
+
+  /**
+   * Compile the sources in the given order, and some of them again if incremental, returning the
+   * contents of every resource written by name, that is every file but the class files.
+   */
+  private Map<String, byte[]> compile(final List<File> sources, final File dir,
+                                      final List<String> options) throws IOException {
+    if (!dir.mkdirs()) {
+      throw new IOException("could not create " + dir);
+    }
+    tree.compile(sources, dir, options, new JacksonJerseyAnnotationProcessor());
+    if (options.contains(INCREMENTAL)) {
+      final List<File> changed = Lists.newArrayList();
+      for (int i = 0; i < sources.size(); i += 3) {
+        changed.add(sources.get(i));
+      }
+      tree.compile(changed, dir, options, new JacksonJerseyAnnotationProcessor());
+    }
+    final Map<String, byte[]> resources = Maps.newTreeMap();
+    collectResources(dir, "", resources);
+    return resources;
+  }
+
+  private static void collectResources(final File dir, final String prefix,
+                                       final Map<String, byte[]> resources) throws IOException {
+    final File[] children = dir.listFiles();
+    if (children == null) {
+      throw new IOException("could not list " + dir);
+    }
+    for (final File child : children) {
+      if (child.isDirectory()) {
+        collectResources(child, prefix + child.getName() + "/", resources);
+      } else if (!child.getName().endsWith(".class")) {
+        resources.put(prefix + child.getName(), Files.toByteArray(child));
+      }
+    }
+  }
+
+  /**
+   * A resource class with a GET endpoint on the same path as those of all other aliases, and of
+   * the first resource of the {@link SyntheticApi}.  Their doc comments tell them apart.
+   */
+  private static String aliasSource(final int i) {
+    return "package " + ALIAS_PACKAGE + ";\n"
+           + "\n"
+           + "import javax.ws.rs.*;\n"
+           + "\n"
+           + "@Path(\"/resource0\")\n"
+           + "public class Alias" + i + " {\n"
+           + "  /**\n"
+           + "   * GET endpoint of alias number " + i + ".\n"
+           + "   */\n"
+           + "  @GET\n"
+           + "  @Path(\"/{id}\")\n"
+           + "  @Produces(\"application/json\")\n"
+           + "  public String get(@PathParam(\"id\") String id) {\n"
+           + "    return null;\n"
+           + "  }\n"
+           + "}\n";
+  }
+}
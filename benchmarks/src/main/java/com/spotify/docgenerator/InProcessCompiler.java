@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+
+import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles source trees with the system java compiler, in this JVM, against the classes already
+ * compiled into the output directory and the classpath this class was loaded from.
+ */
+class InProcessCompiler {
+
+  private final JavaCompiler compiler;
+
+  InProcessCompiler() {
+    compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      throw new IllegalStateException("no system java compiler, this needs to run on a JDK");
+    }
+  }
+
+  /**
+   * Compile the sources into {@code outputDir}.  Only the given processor is run, or none at all
+   * if it's null.
+   */
+  void compile(final List<File> sources, final File outputDir, final List<String> options,
+               final Processor processor) throws IOException {
+    final DiagnosticCollector<JavaFileObject> diagnostics =
+        new DiagnosticCollector<JavaFileObject>();
+    try (final StandardJavaFileManager fileManager =
+             compiler.getStandardFileManager(diagnostics, null, Charsets.UTF_8)) {
+      final List<String> allOptions = Lists.newArrayList(options);
+      allOptions.addAll(ImmutableList.of(
+          "-d", outputDir.getPath(),
+          "-classpath", outputDir.getPath() + File.pathSeparator + classpath()));
+      if (processor == null) {
+        allOptions.add("-proc:none");
+      }
+      final JavaCompiler.CompilationTask task = compiler.getTask(
+          null, fileManager, diagnostics, allOptions, null,
+          fileManager.getJavaFileObjectsFromFiles(sources));
+      if (processor != null) {
+        task.setProcessors(ImmutableList.of(processor));
+      }
+      if (!task.call()) {
+        throw new IllegalStateException("compilation failed: " + errors(diagnostics));
+      }
+    }
+  }
+
+  private static String errors(final DiagnosticCollector<JavaFileObject> diagnostics) {
+    final StringBuilder errors = new StringBuilder();
+    for (final Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+        errors.append('\n').append(diagnostic);
+      }
+    }
+    return errors.toString();
+  }
+
+  /**
+   * Under exec:java we are loaded by a class loader of our own, and the system class path is that
+   * of Maven.
+   */
+  private static String classpath() {
+    final ClassLoader loader = InProcessCompiler.class.getClassLoader();
+    if (!(loader instanceof URLClassLoader)) {
+      return System.getProperty("java.class.path");
+    }
+    final List<String> paths = Lists.newArrayList();
+    for (final URL url : ((URLClassLoader) loader).getURLs()) {
+      try {
+        paths.add(new File(url.toURI()).getPath());
+      } catch (URISyntaxException | IllegalArgumentException e) {
+        // not a local file, so no use to the compiler
+      }
+    }
+    return Joiner.on(File.pathSeparator).join(paths);
+  }
+
+  static void deleteRecursively(final File file) throws IOException {
+    final File[] children = file.listFiles();
+    if (children != null) {
+      for (final File child : children) {
+        deleteRecursively(child);
+      }
+    }
+    if (!file.delete()) {
+      throw new IOException("could not delete " + file);
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link JacksonJerseyAnnotationProcessor} over a generated source tree, using an in-process
+ * compiler.  Only annotation processing is done, so class file generation doesn't get measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ProcessorBenchmark {
+
+  @Param({ "10", "100", "1000" })
+  public int endpoints;
+
+  @Param({ "10", "100", "1000" })
+  public int transferClasses;
+
+  private InProcessCompiler compiler;
+  private File sourceDir;
+  private File outputDir;
+  private List<File> sources;
+
+  @Setup
+  public void setUp() throws IOException {
+    compiler = new InProcessCompiler();
+    sourceDir = Files.createTempDir();
+    outputDir = Files.createTempDir();
+    sources = new SyntheticApi(endpoints, transferClasses).writeSources(sourceDir);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    InProcessCompiler.deleteRecursively(sourceDir);
+    InProcessCompiler.deleteRecursively(outputDir);
+  }
+
+  @Benchmark
+  public File process() throws IOException {
+    compiler.compile(sources, outputDir, ImmutableList.of("-proc:only"),
+                     new JacksonJerseyAnnotationProcessor());
+    return outputDir;
+  }
+}
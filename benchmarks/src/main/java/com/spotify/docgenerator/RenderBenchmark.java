@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.collect.Lists;
+
+import org.apache.maven.doxia.sink.Sink;
+import org.apache.maven.doxia.sink.XhtmlBaseSink;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering already loaded descriptors with {@link DocgeneratorMojo} into an in-memory sink.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class RenderBenchmark {
+
+  @Param({ "10", "100", "1000" })
+  public int endpoints;
+
+  @Param({ "10", "100", "1000" })
+  public int transferClasses;
+
+  @Param({ "1", "4" })
+  public int threads;
+
+  private List<ResourceMethod> resourceMethods;
+  private Map<String, TransferClass> transferClassMap;
+  private DocgeneratorMojo mojo;
+  private ForkJoinPool pool;
+
+  @Setup
+  public void setUp() {
+    final SyntheticApi api = new SyntheticApi(endpoints, transferClasses);
+    resourceMethods = api.resourceMethods();
+    transferClassMap = api.transferClasses();
+    mojo = new DocgeneratorMojo();
+    mojo.setThreads(threads);
+    pool = new ForkJoinPool(threads);
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public String render() {
+    final StringWriter out = new StringWriter();
+    final Sink sink = new XhtmlBaseSink(out);
+    // The endpoints get sorted in place, so hand over a fresh copy every time
+    mojo.renderReport(sink, Lists.newArrayList(resourceMethods), transferClassMap, pool);
+    sink.flush();
+    sink.close();
+    return out.toString();
+  }
+}
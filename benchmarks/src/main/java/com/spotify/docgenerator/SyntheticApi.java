@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A made up API of a given size and shape, both as the descriptors the processor would produce
+ * for it and as Java sources the processor can be run on.
+ *
+ * Every resource class has up to four endpoints, one per request method, and every transfer
+ * class refers to the next one, so the report has links to follow.  With a generic depth, transfer
+ * classes also refer to the next one through that many nested lists and maps, and with enums, each
+ * of them refers to one of the enums.
+ *
+ * Run it to write out a source tree:
+ * {@code SyntheticApi <dir> <endpoints> <transferClasses> [genericDepth] [enums]}
+ */
+class SyntheticApi {
+
+  static final String PACKAGE = "com.spotify.docgenerator.synthetic";
+
+  private static final String[] METHODS = { "GET", "POST", "PUT", "DELETE" };
+  private static final int ENUM_CONSTANTS = 4;
+
+  private static final TypeDescriptor STRING = type("java.lang.String");
+  private static final TypeDescriptor INT = type("int");
+  private static final TypeDescriptor STRING_LIST =
+      new TypeDescriptor("java.util.List", ImmutableList.of(STRING));
+
+  private final int endpoints;
+  private final int transferClasses;
+  private final int genericDepth;
+  private final int enums;
+
+  SyntheticApi(final int endpoints, final int transferClasses) {
+    this(endpoints, transferClasses, 0, 0);
+  }
+
+  SyntheticApi(final int endpoints, final int transferClasses, final int genericDepth,
+               final int enums) {
+    if (endpoints < 0 || genericDepth < 0 || enums < 0) {
+      throw new IllegalArgumentException("sizes can't be negative");
+    }
+    if (transferClasses < 1) {
+      throw new IllegalArgumentException("need at least one transfer class");
+    }
+    this.endpoints = endpoints;
+    this.transferClasses = transferClasses;
+    this.genericDepth = genericDepth;
+    this.enums = enums;
+  }
+
+  public static void main(final String[] args) throws IOException {
+    if (args.length < 3 || args.length > 5) {
+      System.err.println(
+          "usage: SyntheticApi <dir> <endpoints> <transferClasses> [genericDepth] [enums]");
+      System.exit(1);
+    }
+    final SyntheticApi api = new SyntheticApi(
+        Integer.parseInt(args[1]),
+        Integer.parseInt(args[2]),
+        (args.length > 3) ? Integer.parseInt(args[3]) : 0,
+        (args.length > 4) ? Integer.parseInt(args[4]) : 0);
+    final List<File> files = api.writeSources(new File(args[0]));
+    System.out.println("wrote " + files.size() + " files to " + args[0]);
+  }
+
+  /**
+   * The contents of RESTEndpoints, in the order the processor would write them.
+   */
+  List<ResourceMethod> resourceMethods() {
+    final List<ResourceMethod> methods = Lists.newArrayList();
+    for (int i = 0; i < endpoints; i++) {
+      final String method = METHODS[i % METHODS.length];
+      final List<ResourceArgument> arguments = Lists.newArrayList(
+          new ResourceArgument("id", STRING));
+      if (hasBody(method)) {
+        arguments.add(new ResourceArgument("body", transferClassType(i)));
+      }
+      methods.add(new ResourceMethod("", method, resourcePath(i / METHODS.length) + "/{id}",
+          "application/json", transferClassType(i), arguments,
+          " " + method + " endpoint number " + i + ".\n"));
+    }
+    return methods;
+  }
+
+  /**
+   * The contents of JSONClasses.
+   */
+  Map<String, TransferClass> transferClasses() {
+    final Map<String, TransferClass> classes = Maps.newTreeMap();
+    for (int i = 0; i < transferClasses; i++) {
+      final TransferClass klass = new TransferClass(Lists.<TransferMember>newArrayList(),
+          " Transfer class number " + i + ".\n");
+      klass.add("name", STRING);
+      klass.add("count", INT);
+      klass.add("tags", STRING_LIST);
+      klass.add("next", transferClassType(i + 1));
+      if (genericDepth > 0) {
+        klass.add("nested", nestedType(transferClassType(i + 1), genericDepth));
+      }
+      if (enums > 0) {
+        klass.add("kind", type(enumName(i)));
+      }
+      classes.put(transferClassName(i), klass);
+    }
+    for (int e = 0; e < Math.min(enums, transferClasses); e++) {
+      final List<String> constants = Lists.newArrayList();
+      for (int c = 0; c < ENUM_CONSTANTS; c++) {
+        constants.add("VALUE_" + c);
+      }
+      classes.put(enumName(e), new TransferClass(null, " Enum number " + e + ".\n", constants));
+    }
+    return classes;
+  }
+
+  /**
+   * Write the API out as a Java source tree under {@code root}, returning the files written.
+   */
+  List<File> writeSources(final File root) throws IOException {
+    final File dir = new File(root, PACKAGE.replace('.', File.separatorChar));
+    final List<File> files = Lists.newArrayList();
+    for (int i = 0; i < transferClasses; i++) {
+      files.add(write(dir, "Dto" + i, transferClassSource(i)));
+    }
+    for (int e = 0; e < enums; e++) {
+      files.add(write(dir, "Kind" + e, enumSource(e)));
+    }
+    final int resources = (endpoints + METHODS.length - 1) / METHODS.length;
+    for (int r = 0; r < resources; r++) {
+      files.add(write(dir, "Resource" + r, resourceSource(r)));
+    }
+    return files;
+  }
+
+  private String transferClassSource(final int i) {
+    final String name = "Dto" + i;
+    final String next = simpleName(i + 1);
+    return "package " + PACKAGE + ";\n"
+           + "\n"
+           + "import com.fasterxml.jackson.annotation.JsonProperty;\n"
+           + "\n"
+           + "import java.util.List;\n"
+           + "import java.util.Map;\n"
+           + "\n"
+           + "/**\n"
+           + " * Transfer class number " + i + ".\n"
+           + " */\n"
+           + "public class " + name + " {\n"
+           + "  public " + name + "(@JsonProperty(\"name\") String name,\n"
+           + "      @JsonProperty(\"count\") int count,\n"
+           + "      @JsonProperty(\"tags\") List<String> tags,\n"
+           + "      @JsonProperty(\"next\") " + next + " next"
+           + ((genericDepth > 0)
+              ? ",\n      @JsonProperty(\"nested\") " + nestedSource(next, genericDepth) + " nested"
+              : "")
+           + ((enums > 0)
+              ? ",\n      @JsonProperty(\"kind\") Kind" + (i % enums) + " kind"
+              : "")
+           + ") {\n"
+           + "  }\n"
+           + "}\n";
+  }
+
+  private String enumSource(final int e) {
+    final StringBuilder source = new StringBuilder()
+        .append("package ").append(PACKAGE).append(";\n")
+        .append("\n")
+        .append("/**\n")
+        .append(" * Enum number ").append(e).append(".\n")
+        .append(" */\n")
+        .append("public enum Kind").append(e).append(" {\n");
+    for (int c = 0; c < ENUM_CONSTANTS; c++) {
+      source.append("  VALUE_").append(c).append(",\n");
+    }
+    return source.append("}\n").toString();
+  }
+
+  /**
+   * Wrap the type in alternating lists and maps, {@code depth} levels deep.
+   */
+  private static String nestedSource(final String type, final int depth) {
+    if (depth == 0) {
+      return type;
+    }
+    final String inner = nestedSource(type, depth - 1);
+    return (depth % 2 == 1) ? "List<" + inner + ">" : "Map<String, " + inner + ">";
+  }
+
+  private static TypeDescriptor nestedType(final TypeDescriptor type, final int depth) {
+    if (depth == 0) {
+      return type;
+    }
+    final TypeDescriptor inner = nestedType(type, depth - 1);
+    return (depth % 2 == 1)
+           ? new TypeDescriptor("java.util.List", ImmutableList.of(inner))
+           : new TypeDescriptor("java.util.Map", ImmutableList.of(STRING, inner));
+  }
+
+  private String resourceSource(final int r) {
+    final StringBuilder source = new StringBuilder()
+        .append("package ").append(PACKAGE).append(";\n")
+        .append("\n")
+        .append("import javax.ws.rs.*;\n")
+        .append("\n")
+        .append("@Path(\"").append(resourcePath(r)).append("\")\n")
+        .append("public class Resource").append(r).append(" {\n");
+    for (int m = 0; m < METHODS.length; m++) {
+      final int i = r * METHODS.length + m;
+      if (i >= endpoints) {
+        break;
+      }
+      final String method = METHODS[m];
+      source.append("  /**\n")
+          .append("   * ").append(method).append(" endpoint number ").append(i).append(".\n")
+          .append("   */\n")
+          .append("  @").append(method).append("\n")
+          .append("  @Path(\"/{id}\")\n")
+          .append("  @Produces(\"application/json\")\n")
+          .append("  public ").append(simpleName(i)).append(" ")
+          .append(method.toLowerCase()).append("(@PathParam(\"id\") String id");
+      if (hasBody(method)) {
+        source.append(", ").append(simpleName(i)).append(" body");
+      }
+      source.append(") {\n")
+          .append("    return null;\n")
+          .append("  }\n");
+    }
+    return source.append("}\n").toString();
+  }
+
+  private static File write(final File dir, final String className, final String source)
+      throws IOException {
+    final File file = new File(dir, className + ".java");
+    Files.createParentDirs(file);
+    Files.write(source, file, Charsets.UTF_8);
+    return file;
+  }
+
+  private static boolean hasBody(final String method) {
+    return method.equals("POST") || method.equals("PUT");
+  }
+
+  private static String resourcePath(final int resource) {
+    return "/resource" + resource;
+  }
+
+  private String simpleName(final int i) {
+    return "Dto" + (i % transferClasses);
+  }
+
+  private String transferClassName(final int i) {
+    return PACKAGE + "." + simpleName(i);
+  }
+
+  private String enumName(final int i) {
+    return PACKAGE + ".Kind" + (i % enums);
+  }
+
+  private TypeDescriptor transferClassType(final int i) {
+    return type(transferClassName(i));
+  }
+
+  private static TypeDescriptor type(final String name) {
+    return new TypeDescriptor(name, null);
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.processing.Processor;
+
+/**
+ * A {@link SyntheticApi} written out as a source tree in a temporary directory, with another one
+ * to compile it into, for the checks that run the processor on it.  Its shape is set by the
+ * system properties {@code endpoints}, {@code transferClasses}, {@code genericDepth} and
+ * {@code enums}, under a prefix of the check's own.  Closing it deletes both directories.
+ */
+class SyntheticTree implements Closeable {
+
+  private final String prefix;
+  private final InProcessCompiler compiler = new InProcessCompiler();
+  private final File sourceDir = Files.createTempDir();
+  private final File outputDir = Files.createTempDir();
+  private final List<File> sources;
+
+  SyntheticTree(final String prefix) throws IOException {
+    this.prefix = prefix;
+    final SyntheticApi api = new SyntheticApi(
+        property("endpoints", 400),
+        property("transferClasses", 200),
+        property("genericDepth", 3),
+        property("enums", 20));
+    try {
+      sources = Lists.newArrayList(api.writeSources(sourceDir));
+    } catch (IOException e) {
+      close();
+      throw e;
+    }
+  }
+
+  int property(final String name, final int defaultValue) {
+    return Integer.getInteger(prefix + name, defaultValue);
+  }
+
+  List<File> getSources() {
+    return Collections.unmodifiableList(sources);
+  }
+
+  File getOutputDir() {
+    return outputDir;
+  }
+
+  /**
+   * Add a class of the given source to the tree.
+   */
+  void addSource(final String packageName, final String className, final String source)
+      throws IOException {
+    final File file = new File(new File(sourceDir, packageName.replace('.', File.separatorChar)),
+                               className + ".java");
+    Files.createParentDirs(file);
+    Files.write(source, file, Charsets.UTF_8);
+    sources.add(file);
+  }
+
+  /**
+   * Compile the sources into {@code dir}, see {@link InProcessCompiler#compile}.
+   */
+  void compile(final List<File> sources, final File dir, final List<String> options,
+               final Processor processor) throws IOException {
+    compiler.compile(sources, dir, options, processor);
+  }
+
+  @Override
+  public void close() throws IOException {
+    InProcessCompiler.deleteRecursively(sourceDir);
+    InProcessCompiler.deleteRecursively(outputDir);
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Shared bits of the binary descriptor format written by {@link BinaryDescriptorWriter} and read
+ * by {@link BinaryDescriptorReader}.
+ *
+ * <p>A file is the {@link #MAGIC} bytes, a version, the kind of records it holds, a table of
+ * distinct strings, a table of distinct {@link TypeDescriptor}s (whose names and type arguments
+ * are ids into the string table and earlier entries of the type table), and then the records,
+ * which only hold ids into the tables.  All numbers are unsigned varints; nullable values are
+ * stored off by one, with zero meaning null.
+ */
+final class BinaryDescriptorFormat {
+  static final byte[] MAGIC = { 'D', 'G', 'B', 'D' };
+  static final int VERSION = 1;
+
+  static final int KIND_TRANSFER_CLASSES = 1;
+  static final int KIND_RESOURCE_METHODS = 2;
+
+  private BinaryDescriptorFormat() {
+  }
+
+  /**
+   * Whether the buffer starts with {@link #MAGIC}, from its current position, which it leaves as
+   * it was.
+   */
+  static boolean startsWithMagic(final ByteBuffer buffer) {
+    if (buffer.remaining() < MAGIC.length) {
+      return false;
+    }
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (buffer.get(buffer.position() + i) != MAGIC[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static void writeVarInt(final OutputStream out, final int value) throws IOException {
+    int v = value;
+    while ((v & ~0x7f) != 0) {
+      out.write((v & 0x7f) | 0x80);
+      v >>>= 7;
+    }
+    out.write(v);
+  }
+
+  static int readVarInt(final ByteBuffer buffer) throws IOException {
+    try {
+      int value = 0;
+      for (int shift = 0; shift < 32; shift += 7) {
+        final byte b = buffer.get();
+        value |= (b & 0x7f) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+    } catch (BufferUnderflowException e) {
+      throw new IOException("truncated binary descriptor", e);
+    }
+    throw new IOException("malformed varint in binary descriptor");
+  }
+}
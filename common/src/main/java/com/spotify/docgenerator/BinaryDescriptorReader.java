@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import static com.spotify.docgenerator.BinaryDescriptorFormat.KIND_RESOURCE_METHODS;
+import static com.spotify.docgenerator.BinaryDescriptorFormat.KIND_TRANSFER_CLASSES;
+import static com.spotify.docgenerator.BinaryDescriptorFormat.MAGIC;
+import static com.spotify.docgenerator.BinaryDescriptorFormat.VERSION;
+import static com.spotify.docgenerator.BinaryDescriptorFormat.readVarInt;
+
+/**
+ * Reads files written by {@link BinaryDescriptorWriter}.  Every string and type in the file is
+ * decoded once, and the records share the resulting instances.
+ */
+public class BinaryDescriptorReader {
+  private final ByteBuffer buffer;
+  private final int kind;
+  private final String[] strings;
+  private final TypeDescriptor[] types;
+
+  private BinaryDescriptorReader(final ByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+    try {
+      for (final byte b : MAGIC) {
+        if (buffer.get() != b) {
+          throw new IOException("not a binary descriptor");
+        }
+      }
+    } catch (BufferUnderflowException e) {
+      throw new IOException("not a binary descriptor", e);
+    }
+    final int version = readVarInt(buffer);
+    if (version != VERSION) {
+      throw new IOException("unsupported binary descriptor version " + version);
+    }
+    kind = readVarInt(buffer);
+
+    strings = new String[count()];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = readUtf8(readVarInt(buffer));
+    }
+
+    types = new TypeDescriptor[count()];
+    for (int i = 0; i < types.length; i++) {
+      final String name = nullableString();
+      final int argumentCount = count();
+      final List<TypeDescriptor> typeArguments = Lists.newArrayListWithCapacity(argumentCount);
+      for (int j = 0; j < argumentCount; j++) {
+        typeArguments.add(type(readVarInt(buffer)));
+      }
+      types[i] = new TypeDescriptor(name, typeArguments);
+    }
+  }
+
+  /**
+   * Whether the buffer holds a binary descriptor, as opposed to JSON, from its current position,
+   * which it leaves as it was.
+   */
+  public static boolean isBinary(final ByteBuffer buffer) {
+    return BinaryDescriptorFormat.startsWithMagic(buffer);
+  }
+
+  public static Map<String, TransferClass> readTransferClasses(final ByteBuffer buffer)
+      throws IOException {
+    final BinaryDescriptorReader reader = new BinaryDescriptorReader(buffer);
+    reader.checkKind(KIND_TRANSFER_CLASSES);
+    final int count = reader.count();
+    final Map<String, TransferClass> classes = Maps.newHashMapWithExpectedSize(count);
+    for (int i = 0; i < count; i++) {
+      final String name = reader.string(readVarInt(buffer));
+      final String javadoc = reader.nullableString();
+      final Javadoc doc = reader.doc();
+      final int memberCount = reader.nullableCount();
+      List<TransferMember> members = null;
+      if (memberCount > 0) {
+        members = Lists.newArrayListWithCapacity(memberCount - 1);
+        for (int j = 1; j < memberCount; j++) {
+          members.add(new TransferMember(reader.nullableString(), reader.nullableType()));
+        }
+      }
+      final List<String> enumConstants = reader.nullableStrings();
+      classes.put(name, new TransferClass(members, javadoc, enumConstants, doc));
+    }
+    return classes;
+  }
+
+  public static List<ResourceMethod> readResourceMethods(final ByteBuffer buffer)
+      throws IOException {
+    final BinaryDescriptorReader reader = new BinaryDescriptorReader(buffer);
+    reader.checkKind(KIND_RESOURCE_METHODS);
+    final int count = reader.count();
+    final List<ResourceMethod> methods = Lists.newArrayListWithCapacity(count);
+    for (int i = 0; i < count; i++) {
+      final String name = reader.nullableString();
+      final String method = reader.nullableString();
+      final String path = reader.nullableString();
+      final String returnContentType = reader.nullableString();
+      final TypeDescriptor returnType = reader.nullableType();
+      final String javadoc = reader.nullableString();
+      final Javadoc doc = reader.doc();
+      final int argumentCount = reader.nullableCount();
+      List<ResourceArgument> arguments = null;
+      if (argumentCount > 0) {
+        arguments = Lists.newArrayListWithCapacity(argumentCount - 1);
+        for (int j = 1; j < argumentCount; j++) {
+          arguments.add(new ResourceArgument(reader.nullableString(), reader.nullableType()));
+        }
+      }
+      methods.add(new ResourceMethod(name, method, path, returnContentType, returnType,
+          arguments, javadoc, doc));
+    }
+    return methods;
+  }
+
+  private void checkKind(final int expected) throws IOException {
+    if (kind != expected) {
+      throw new IOException("binary descriptor holds record kind " + kind + ", not " + expected);
+    }
+  }
+
+  /**
+   * The number of entries of a table or list, each of which takes at least a byte, so that a
+   * corrupt count is rejected before anything is allocated for it.
+   */
+  private int count() throws IOException {
+    final int count = readVarInt(buffer);
+    if (count < 0 || count > buffer.remaining()) {
+      throw new IOException("corrupt binary descriptor count " + count);
+    }
+    return count;
+  }
+
+  /**
+   * Like {@link #count()}, for a list that may be null: zero for null, or one more than the
+   * number of entries.
+   */
+  private int nullableCount() throws IOException {
+    final int count = readVarInt(buffer);
+    if (count < 0 || count - 1 > buffer.remaining()) {
+      throw new IOException("corrupt binary descriptor count " + count);
+    }
+    return count;
+  }
+
+  private String readUtf8(final int length) throws IOException {
+    if (length < 0 || length > buffer.remaining()) {
+      throw new IOException("truncated binary descriptor");
+    }
+    final String s;
+    if (buffer.hasArray()) {
+      s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+          Charsets.UTF_8);
+    } else {
+      final byte[] bytes = new byte[length];
+      buffer.duplicate().get(bytes);
+      s = new String(bytes, Charsets.UTF_8);
+    }
+    buffer.position(buffer.position() + length);
+    return s;
+  }
+
+  private String string(final int id) throws IOException {
+    if (id < 0 || id >= strings.length) {
+      throw new IOException("string id " + id + " out of range");
+    }
+    return strings[id];
+  }
+
+  private String nullableString() throws IOException {
+    final int id = readVarInt(buffer);
+    return (id == 0) ? null : string(id - 1);
+  }
+
+  private List<String> nullableStrings() throws IOException {
+    final int count = nullableCount();
+    if (count == 0) {
+      return null;
+    }
+    final List<String> list = Lists.newArrayListWithCapacity(count - 1);
+    for (int i = 1; i < count; i++) {
+      list.add(string(readVarInt(buffer)));
+    }
+    return list;
+  }
+
+  /**
+   * The parsed doc comment of a record, if it has one.
+   */
+  private Javadoc doc() throws IOException {
+    if (readVarInt(buffer) == 0) {
+      return null;
+    }
+    final String summary = nullableString();
+    final List<String> body = nullableStrings();
+    final int paramCount = nullableCount();
+    List<Javadoc.Param> params = null;
+    if (paramCount > 0) {
+      params = Lists.newArrayListWithCapacity(paramCount - 1);
+      for (int i = 1; i < paramCount; i++) {
+        params.add(new Javadoc.Param(nullableString(), nullableString()));
+      }
+    }
+    final String returns = nullableString();
+    return new Javadoc(summary, body, params, returns, nullableStrings());
+  }
+
+  private TypeDescriptor type(final int id) throws IOException {
+    // Type arguments always precede their users, so this also rejects forward references.
+    if (id < 0 || id >= types.length || types[id] == null) {
+      throw new IOException("type id " + id + " out of range");
+    }
+    return types[id];
+  }
+
+  private TypeDescriptor nullableType() throws IOException {
+    final int id = readVarInt(buffer);
+    return (id == 0) ? null : type(id - 1);
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+import static com.spotify.docgenerator.BinaryDescriptorFormat.KIND_RESOURCE_METHODS;
+import static com.spotify.docgenerator.BinaryDescriptorFormat.KIND_TRANSFER_CLASSES;
+import static com.spotify.docgenerator.BinaryDescriptorFormat.MAGIC;
+import static com.spotify.docgenerator.BinaryDescriptorFormat.VERSION;
+import static com.spotify.docgenerator.BinaryDescriptorFormat.writeVarInt;
+
+/**
+ * Writes {@link TransferClass}es or {@link ResourceMethod}s in the binary descriptor format.
+ * Records are collected one at a time and the whole file, tables first, is written by
+ * {@link #writeTo(OutputStream)}.  See {@link BinaryDescriptorFormat}.
+ */
+public class BinaryDescriptorWriter {
+  private final int kind;
+  private final Map<String, Integer> stringIds = Maps.newHashMap();
+  private final List<String> strings = Lists.newArrayList();
+  private final Map<TypeDescriptor, Integer> typeIds = Maps.newHashMap();
+  private final ByteArrayOutputStream types = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream records = new ByteArrayOutputStream();
+  private int recordCount;
+
+  private BinaryDescriptorWriter(final int kind) {
+    this.kind = kind;
+  }
+
+  public static BinaryDescriptorWriter forTransferClasses() {
+    return new BinaryDescriptorWriter(KIND_TRANSFER_CLASSES);
+  }
+
+  public static BinaryDescriptorWriter forResourceMethods() {
+    return new BinaryDescriptorWriter(KIND_RESOURCE_METHODS);
+  }
+
+  public void writeTransferClass(final String name, final TransferClass klass)
+      throws IOException {
+    checkKind(KIND_TRANSFER_CLASSES);
+    writeVarInt(records, stringId(name));
+    writeVarInt(records, nullableStringId(klass.getJavadoc()));
+    writeDoc(klass.getDoc());
+    final List<TransferMember> members = klass.getMembers();
+    writeVarInt(records, (members == null) ? 0 : members.size() + 1);
+    if (members != null) {
+      for (final TransferMember member : members) {
+        writeVarInt(records, nullableStringId(member.getName()));
+        writeVarInt(records, nullableTypeId(member.getType()));
+      }
+    }
+    writeStrings(klass.getEnumConstants());
+    recordCount++;
+  }
+
+  public void writeResourceMethod(final ResourceMethod method) throws IOException {
+    checkKind(KIND_RESOURCE_METHODS);
+    writeVarInt(records, nullableStringId(method.getName()));
+    writeVarInt(records, nullableStringId(method.getMethod()));
+    writeVarInt(records, nullableStringId(method.getPath()));
+    writeVarInt(records, nullableStringId(method.getReturnContentType()));
+    writeVarInt(records, nullableTypeId(method.getReturnType()));
+    writeVarInt(records, nullableStringId(method.getJavadoc()));
+    writeDoc(method.getDoc());
+    final List<ResourceArgument> arguments = method.getArguments();
+    writeVarInt(records, (arguments == null) ? 0 : arguments.size() + 1);
+    if (arguments != null) {
+      for (final ResourceArgument argument : arguments) {
+        writeVarInt(records, nullableStringId(argument.getName()));
+        writeVarInt(records, nullableTypeId(argument.getType()));
+      }
+    }
+    recordCount++;
+  }
+
+  /**
+   * A present flag, then the summary, the body paragraphs, the params as name and description,
+   * the return description and the links.
+   */
+  private void writeDoc(final Javadoc doc) throws IOException {
+    writeVarInt(records, (doc == null) ? 0 : 1);
+    if (doc == null) {
+      return;
+    }
+    writeVarInt(records, nullableStringId(doc.getSummary()));
+    writeStrings(doc.getBody());
+    final List<Javadoc.Param> params = doc.getParams();
+    writeVarInt(records, (params == null) ? 0 : params.size() + 1);
+    if (params != null) {
+      for (final Javadoc.Param param : params) {
+        writeVarInt(records, nullableStringId(param.getName()));
+        writeVarInt(records, nullableStringId(param.getDescription()));
+      }
+    }
+    writeVarInt(records, nullableStringId(doc.getReturns()));
+    writeStrings(doc.getLinks());
+  }
+
+  private void writeStrings(final List<String> list) throws IOException {
+    writeVarInt(records, (list == null) ? 0 : list.size() + 1);
+    if (list != null) {
+      for (final String s : list) {
+        writeVarInt(records, stringId(s));
+      }
+    }
+  }
+
+  /**
+   * Write the header, the tables and all records written so far.
+   */
+  public void writeTo(final OutputStream out) throws IOException {
+    // The header and string table are written a varint at a time.
+    final BufferedOutputStream buffered = new BufferedOutputStream(out);
+    buffered.write(MAGIC);
+    writeVarInt(buffered, VERSION);
+    writeVarInt(buffered, kind);
+
+    writeVarInt(buffered, strings.size());
+    for (final String s : strings) {
+      final byte[] bytes = s.getBytes(Charsets.UTF_8);
+      writeVarInt(buffered, bytes.length);
+      buffered.write(bytes);
+    }
+
+    writeVarInt(buffered, typeIds.size());
+    types.writeTo(buffered);
+
+    writeVarInt(buffered, recordCount);
+    records.writeTo(buffered);
+    buffered.flush();
+  }
+
+  private void checkKind(final int expected) {
+    if (kind != expected) {
+      throw new IllegalStateException("wrong record kind for this writer");
+    }
+  }
+
+  private int stringId(final String s) {
+    final Integer id = stringIds.get(s);
+    if (id != null) {
+      return id;
+    }
+    final int newId = strings.size();
+    strings.add(s);
+    stringIds.put(s, newId);
+    return newId;
+  }
+
+  private int nullableStringId(final String s) {
+    return (s == null) ? 0 : stringId(s) + 1;
+  }
+
+  /**
+   * The id of the type, adding it (after its type arguments) to the type table if need be.
+   */
+  private int typeId(final TypeDescriptor type) throws IOException {
+    final Integer id = typeIds.get(type);
+    if (id != null) {
+      return id;
+    }
+    final List<TypeDescriptor> typeArguments = type.getTypeArguments();
+    final int[] argumentIds = new int[typeArguments.size()];
+    for (int i = 0; i < argumentIds.length; i++) {
+      argumentIds[i] = typeId(typeArguments.get(i));
+    }
+
+    writeVarInt(types, nullableStringId(type.getName()));
+    writeVarInt(types, argumentIds.length);
+    for (final int argumentId : argumentIds) {
+      writeVarInt(types, argumentId);
+    }
+    final int newId = typeIds.size();
+    typeIds.put(type, newId);
+    return newId;
+  }
+
+  private int nullableTypeId(final TypeDescriptor type) throws IOException {
+    return (type == null) ? 0 : typeId(type) + 1;
+  }
+}
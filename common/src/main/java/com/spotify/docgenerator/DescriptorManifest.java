@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.base.Objects;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Lists the descriptor shards written by the processor in sharded mode: a {@code JSONClasses}
+ * and a {@code RESTEndpoints} shard per Java package, each with a hash of its contents, so that
+ * readers can tell which shards changed without reading them.
+ */
+public class DescriptorManifest {
+  public static final String RESOURCE = "DescriptorManifest";
+  public static final String KIND_TRANSFER_CLASSES = "JSONClasses";
+  public static final String KIND_RESOURCE_METHODS = "RESTEndpoints";
+
+  private final List<Shard> shards;
+
+  public DescriptorManifest(@JsonProperty("shards") List<Shard> shards) {
+    this.shards = shards;
+  }
+
+  public List<Shard> getShards() {
+    return shards;
+  }
+
+  public static class Shard {
+    private final String kind;
+    private final String packageName;
+    private final String resource;
+    private final String sha256;
+
+    public Shard(@JsonProperty("kind") String kind,
+                 @JsonProperty("packageName") String packageName,
+                 @JsonProperty("resource") String resource,
+                 @JsonProperty("sha256") String sha256) {
+      this.kind = kind;
+      this.packageName = packageName;
+      this.resource = resource;
+      this.sha256 = sha256;
+    }
+
+    /**
+     * {@link #KIND_TRANSFER_CLASSES} or {@link #KIND_RESOURCE_METHODS}.
+     */
+    public String getKind() {
+      return kind;
+    }
+
+    public String getPackageName() {
+      return packageName;
+    }
+
+    /**
+     * Where the shard is, relative to the manifest.
+     */
+    public String getResource() {
+      return resource;
+    }
+
+    public String getSha256() {
+      return sha256;
+    }
+
+    @Override
+    public String toString() {
+      return Objects.toStringHelper("Shard")
+          .add("kind", kind)
+          .add("packageName", packageName)
+          .add("resource", resource)
+          .add("sha256", sha256)
+          .toString();
+    }
+  }
+}
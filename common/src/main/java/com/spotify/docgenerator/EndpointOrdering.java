@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.collect.Ordering;
+
+/**
+ * The order endpoints are written and documented in: by path, then by HTTP method.  The
+ * processor writes every descriptor in this order, so sorting the endpoints of all descriptors
+ * together only has to merge runs that are sorted already, and the report can merge the
+ * descriptors as it reads them.
+ */
+public class EndpointOrdering extends Ordering<ResourceMethod> {
+  public static final EndpointOrdering INSTANCE = new EndpointOrdering();
+
+  private EndpointOrdering() {
+  }
+
+  @Override
+  public int compare(final ResourceMethod o1, final ResourceMethod o2) {
+    final int cmp = o1.getPath().compareTo(o2.getPath());
+    if (cmp != 0) {
+      return cmp;
+    }
+    return o1.getMethod().compareTo(o2.getMethod());
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.base.Objects;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * A doc comment, parsed by the processor.  Every piece of text is an HTML fragment that has been
+ * sanitized already, with inline tags like {@code {@link}} and {@code {@code}} turned into
+ * HTML, so it can be output as it is.
+ */
+public class Javadoc {
+  private final String summary;
+  private final List<String> body;
+  private final List<Param> params;
+  private final String returns;
+  private final List<String> links;
+
+  public Javadoc(@JsonProperty("summary") String summary,
+                 @JsonProperty("body") List<String> body,
+                 @JsonProperty("params") List<Param> params,
+                 @JsonProperty("returns") String returns,
+                 @JsonProperty("links") List<String> links) {
+    this.summary = summary;
+    this.body = body;
+    this.params = params;
+    this.returns = returns;
+    this.links = links;
+  }
+
+  /**
+   * The first sentence of the description.
+   */
+  public String getSummary() {
+    return summary;
+  }
+
+  /**
+   * The paragraphs of the description, the summary included.
+   */
+  public List<String> getBody() {
+    return body;
+  }
+
+  /**
+   * The {@code @param} tags, in order.  For endpoints, named after the arguments, which can
+   * differ from the parameter names.
+   */
+  public List<Param> getParams() {
+    return params;
+  }
+
+  /**
+   * The {@code @return} tag.
+   */
+  public String getReturns() {
+    return returns;
+  }
+
+  /**
+   * The qualified names of the types referred to by {@code {@link}} and {@code @see} tags that
+   * could be resolved, in order of first appearance.
+   */
+  public List<String> getLinks() {
+    return links;
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper("Javadoc")
+        .add("summary", summary)
+        .add("body", body)
+        .add("params", params)
+        .add("returns", returns)
+        .add("links", links)
+        .toString();
+  }
+
+  public static class Param {
+    private final String name;
+    private final String description;
+
+    public Param(@JsonProperty("name") String name,
+                 @JsonProperty("description") String description) {
+      this.name = name;
+      this.description = description;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getDescription() {
+      return description;
+    }
+
+    @Override
+    public String toString() {
+      return Objects.toStringHelper("Param")
+          .add("name", name)
+          .add("description", description)
+          .toString();
+    }
+  }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+/**
+ * A custom Java Flight Recorder event type, for seeing what docgenerator spends its time on in a
+ * recording of the build.
+ *
+ * JFR is reached by reflection, so this works on any JVM; without JFR, events are just never
+ * emitted.  Neither are they while nothing is recording, and then {@link #begin(Object)} is about
+ * as cheap as a field read.  Every event has a {@code subject}, e.g. the class or endpoint it is
+ * about, and optionally a numeric value:
+ *
+ * <pre>
+ *   try (JfrEventType.Span span = RENDER_CLASS.begin(className)) {
+ *     ...
+ *   }
+ * </pre>
+ */
+public class JfrEventType {
+  private static final Jfr JFR = Jfr.load();
+
+  /**
+   * Whether any recording is running, kept up to date by a listener on the flight recorder.
+   */
+  private static volatile boolean recording;
+
+  private final Object eventFactory;
+  private final boolean hasValue;
+
+  public JfrEventType(final String name, final String label, final String category) {
+    this(name, label, category, null);
+  }
+
+  /**
+   * @param name       The event name, e.g. {@code com.spotify.docgenerator.RenderEndpoint}.
+   * @param label      A human readable name.
+   * @param category   The category under "Docgenerator".
+   * @param valueField The name of the numeric value field, or null if the event doesn't have one.
+   */
+  public JfrEventType(final String name, final String label, final String category,
+                      final String valueField) {
+    this.eventFactory = (JFR == null) ? null : JFR.createEventFactory(
+        name, label, category, valueField);
+    this.hasValue = valueField != null;
+  }
+
+  /**
+   * Start timing an event about {@code subject}, which is only turned into a string if the event
+   * is going to be recorded.  The event is committed when the span is closed.
+   */
+  public Span begin(final Object subject) {
+    if (!recording || eventFactory == null) {
+      return Span.NONE;
+    }
+    try {
+      final Object event = JFR.newEvent.invoke(eventFactory);
+      JFR.set.invoke(event, 0, String.valueOf(subject));
+      JFR.begin.invoke(event);
+      return new Span(event, hasValue);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return Span.NONE;
+    }
+  }
+
+  /**
+   * An event being timed.
+   */
+  public static class Span implements AutoCloseable {
+    private static final Span NONE = new Span(null, false);
+
+    private final Object event;
+    private final boolean hasValue;
+    private long value;
+
+    private Span(final Object event, final boolean hasValue) {
+      this.event = event;
+      this.hasValue = hasValue;
+    }
+
+    /**
+     * Set the numeric value of the event, if it has one.
+     */
+    public void setValue(final long value) {
+      this.value = value;
+    }
+
+    @Override
+    public void close() {
+      if (event == null) {
+        return;
+      }
+      try {
+        if (hasValue) {
+          JFR.set.invoke(event, 1, value);
+        }
+        JFR.end.invoke(event);
+        JFR.commit.invoke(event);
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        // Lost an event, nothing else to it
+      }
+    }
+  }
+
+  /**
+   * Reflective handles on the {@code jdk.jfr} API.
+   */
+  private static class Jfr {
+    private final Constructor<?> annotationElement;
+    private final Constructor<?> valueDescriptor;
+    private final Class<?> nameAnnotation;
+    private final Class<?> labelAnnotation;
+    private final Class<?> categoryAnnotation;
+    private final Class<?> stackTraceAnnotation;
+    private final Method create;
+    private final Method newEvent;
+    private final Method set;
+    private final Method begin;
+    private final Method end;
+    private final Method commit;
+    private final Method getRecordings;
+    private final Method getState;
+
+    private Jfr(final ClassLoader loader) throws ReflectiveOperationException {
+      final Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+      final Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+      final Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+      final Class<?> eventClass = Class.forName("jdk.jfr.Event");
+      annotationElement = annotationElementClass.getConstructor(Class.class, Object.class);
+      valueDescriptor = valueDescriptorClass.getConstructor(Class.class, String.class);
+      nameAnnotation = Class.forName("jdk.jfr.Name");
+      labelAnnotation = Class.forName("jdk.jfr.Label");
+      categoryAnnotation = Class.forName("jdk.jfr.Category");
+      stackTraceAnnotation = Class.forName("jdk.jfr.StackTrace");
+      create = eventFactoryClass.getMethod("create", List.class, List.class);
+      newEvent = eventFactoryClass.getMethod("newEvent");
+      set = eventClass.getMethod("set", int.class, Object.class);
+      begin = eventClass.getMethod("begin");
+      end = eventClass.getMethod("end");
+      commit = eventClass.getMethod("commit");
+      getRecordings = Class.forName("jdk.jfr.FlightRecorder").getMethod("getRecordings");
+      getState = Class.forName("jdk.jfr.Recording").getMethod("getState");
+
+      final Class<?> listenerClass = Class.forName("jdk.jfr.FlightRecorderListener");
+      final Object listener = Proxy.newProxyInstance(loader, new Class<?>[] { listenerClass },
+          new RecorderListener());
+      Class.forName("jdk.jfr.FlightRecorder").getMethod("addListener", listenerClass)
+          .invoke(null, listener);
+    }
+
+    /**
+     * The handles, or null if this JVM doesn't have JFR.
+     */
+    static Jfr load() {
+      try {
+        return new Jfr(JfrEventType.class.getClassLoader());
+      } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+        return null;
+      }
+    }
+
+    Object createEventFactory(final String name, final String label, final String category,
+                              final String valueField) {
+      try {
+        final List<Object> annotations = ImmutableList.of(
+            annotationElement.newInstance(nameAnnotation, name),
+            annotationElement.newInstance(labelAnnotation, label),
+            annotationElement.newInstance(categoryAnnotation,
+                                          new String[] { "Docgenerator", category }),
+            annotationElement.newInstance(stackTraceAnnotation, false));
+        final List<Object> fields = Lists.newArrayList(
+            valueDescriptor.newInstance(String.class, "subject"));
+        if (valueField != null) {
+          fields.add(valueDescriptor.newInstance(long.class, valueField));
+        }
+        return create.invoke(null, annotations, fields);
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        return null;
+      }
+    }
+
+    /**
+     * Whether any of the recordings of the flight recorder is running.
+     */
+    private boolean isRecording(final Object recorder) throws ReflectiveOperationException {
+      for (final Object recording : (List<?>) getRecordings.invoke(recorder)) {
+        if ("RUNNING".equals(String.valueOf(getState.invoke(recording)))) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Implements {@code jdk.jfr.FlightRecorderListener}, updating {@link #recording} whenever a
+     * recording changes state.
+     */
+    private class RecorderListener implements InvocationHandler {
+      private volatile Object recorder;
+
+      @Override
+      public Object invoke(final Object proxy, final Method method, final Object[] args)
+          throws ReflectiveOperationException {
+        switch (method.getName()) {
+          case "recorderInitialized":
+            recorder = args[0];
+            recording = isRecording(recorder);
+            return null;
+          case "recordingStateChanged":
+            if (recorder != null) {
+              recording = isRecording(recorder);
+            }
+            return null;
+          case "equals":
+            return proxy == args[0];
+          case "hashCode":
+            return System.identityHashCode(proxy);
+          case "toString":
+            return "docgenerator flight recorder listener";
+          default:
+            return null;
+        }
+      }
+    }
+  }
+}
@@ -35,6 +35,13 @@ public class ResourceMethod {
   private final TypeDescriptor returnType;
   private final List<ResourceArgument> arguments;
   private final String javadoc;
+  private final Javadoc doc;
+
+  public ResourceMethod(String name, String method, String path, String returnContentType,
+                        TypeDescriptor returnType, List<ResourceArgument> arguments,
+                        String javadoc) {
+    this(name, method, path, returnContentType, returnType, arguments, javadoc, null);
+  }
 
   public ResourceMethod(@JsonProperty("name") String name,
                          @JsonProperty("method") String method,
@@ -42,7 +49,8 @@ public class ResourceMethod {
                          @JsonProperty("returnContentType") String returnContentType,
                          @JsonProperty("returnType") TypeDescriptor returnType,
                          @JsonProperty("resourceArgument") List<ResourceArgument> arguments,
-                         @JsonProperty("javadoc") String javadoc) {
+                         @JsonProperty("javadoc") String javadoc,
+                         @JsonProperty("doc") Javadoc doc) {
     this.name = name;
     this.method = method;
     this.path = path;
@@ -50,6 +58,7 @@ public class ResourceMethod {
     this.returnType = returnType;
     this.arguments = arguments;
     this.javadoc = javadoc;
+    this.doc = doc;
   }
 
   public String getName() {
@@ -76,10 +85,20 @@ public class ResourceMethod {
     return arguments;
   }
 
+  /**
+   * The doc comment as it is in the source, from processors that didn't parse it yet.
+   */
   public String getJavadoc() {
     return javadoc;
   }
 
+  /**
+   * The parsed doc comment, or null if there is none or it was not parsed.
+   */
+  public Javadoc getDoc() {
+    return doc;
+  }
+
   @Override
   public String toString() {
     return Objects.toStringHelper("ResourceMethod")
@@ -90,6 +109,7 @@ public class ResourceMethod {
         .add("returnType", returnType)
         .add("arguments", arguments)
         .add("javadoc", javadoc)
+        .add("doc", doc)
         .toString();
   }
 }
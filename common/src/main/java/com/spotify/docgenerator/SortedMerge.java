@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import com.google.common.collect.UnmodifiableIterator;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Merges sequences that are each already sorted into one sorted sequence, taking the next
+ * element of a sequence only once its previous one is out.  Equal elements come out in the order
+ * of the sequences they are in, and within a sequence in their order there, just like a stable
+ * sort of the sequences concatenated.
+ */
+public class SortedMerge<T> extends UnmodifiableIterator<T> {
+  private final PriorityQueue<Source<T>> heads;
+
+  public SortedMerge(final List<? extends Iterable<? extends T>> sorted,
+              final Comparator<? super T> comparator) {
+    heads = new PriorityQueue<Source<T>>(Math.max(1, sorted.size()),
+        new Comparator<Source<T>>() {
+          @Override
+          public int compare(final Source<T> o1, final Source<T> o2) {
+            final int cmp = comparator.compare(o1.iterator.peek(), o2.iterator.peek());
+            if (cmp != 0) {
+              return cmp;
+            }
+            return Integer.compare(o1.index, o2.index);
+          }
+        });
+    for (int i = 0; i < sorted.size(); i++) {
+      final PeekingIterator<T> iterator = Iterators.peekingIterator(sorted.get(i).iterator());
+      if (iterator.hasNext()) {
+        heads.add(new Source<T>(i, iterator));
+      }
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    return !heads.isEmpty();
+  }
+
+  @Override
+  public T next() {
+    final Source<T> source = heads.remove();
+    final T next = source.iterator.next();
+    if (source.iterator.hasNext()) {
+      heads.add(source);
+    }
+    return next;
+  }
+
+  private static class Source<T> {
+    private final int index;
+    private final PeekingIterator<T> iterator;
+
+    Source(final int index, final PeekingIterator<T> iterator) {
+      this.index = index;
+      this.iterator = iterator;
+    }
+  }
+}
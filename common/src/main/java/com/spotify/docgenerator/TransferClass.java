@@ -28,21 +28,53 @@ import java.util.List;
 public class TransferClass {
   private final List<TransferMember> members;
   private final String javadoc;
+  private final List<String> enumConstants;
+  private final Javadoc doc;
+
+  public TransferClass(List<TransferMember> members, String javadoc) {
+    this(members, javadoc, null);
+  }
+
+  public TransferClass(List<TransferMember> members, String javadoc,
+                       List<String> enumConstants) {
+    this(members, javadoc, enumConstants, null);
+  }
 
   public TransferClass(@JsonProperty("members") List<TransferMember> members,
-                       @JsonProperty("javadoc") String javadoc) {
+                       @JsonProperty("javadoc") String javadoc,
+                       @JsonProperty("enumConstants") List<String> enumConstants,
+                       @JsonProperty("doc") Javadoc doc) {
     this.members = members;
     this.javadoc = javadoc;
+    this.enumConstants = enumConstants;
+    this.doc = doc;
   }
 
   public List<TransferMember> getMembers() {
     return members;
   }
 
+  /**
+   * The doc comment as it is in the source, from processors that didn't parse it yet.
+   */
   public String getJavadoc() {
     return javadoc;
   }
 
+  /**
+   * The parsed doc comment, or null if there is none or it was not parsed.
+   */
+  public Javadoc getDoc() {
+    return doc;
+  }
+
+  /**
+   * The names of the constants, in declaration order, if this is an enum.  Null otherwise.
+   */
+  public List<String> getEnumConstants() {
+    return enumConstants;
+  }
+
   public void add(String name, TypeDescriptor type) {
     members.add(new TransferMember(name, type));
   }
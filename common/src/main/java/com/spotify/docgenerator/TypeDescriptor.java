@@ -22,19 +22,28 @@
 package com.spotify.docgenerator;
 
 import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.List;
 
+/**
+ * Immutable, and equal to any other descriptor of the same type, so instances can be shared.  A
+ * type without type arguments has an empty list of them, however it was read.
+ */
 public class TypeDescriptor {
   private final String name;
   private final List<TypeDescriptor> typeArguments;
+  private final int hashCode;
 
   public TypeDescriptor(@JsonProperty("name") String name,
                         @JsonProperty("typeArguments") List<TypeDescriptor> typeArguments) {
     this.name = name;
-    this.typeArguments = typeArguments;
+    this.typeArguments = (typeArguments == null)
+                         ? ImmutableList.<TypeDescriptor>of()
+                         : ImmutableList.copyOf(typeArguments);
+    this.hashCode = Objects.hashCode(name, this.typeArguments);
   }
 
   public String getName() {
@@ -45,6 +54,25 @@ public class TypeDescriptor {
     return typeArguments;
   }
 
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof TypeDescriptor)) {
+      return false;
+    }
+    final TypeDescriptor that = (TypeDescriptor) o;
+    return hashCode == that.hashCode
+        && Objects.equal(name, that.name)
+        && Objects.equal(typeArguments, that.typeArguments);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
   @Override
   public String toString() {
     return Objects.toStringHelper("TypeDescriptor")
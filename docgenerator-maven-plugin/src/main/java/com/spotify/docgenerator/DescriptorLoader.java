@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.reporting.MavenReportException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Loads descriptor files, several at a time.  Results are merged in the order the files were
+ * given, so the outcome does not depend on which file finishes first.
+ */
+class DescriptorLoader {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final ObjectReader RESOURCE_METHODS_READER = MAPPER.reader(
+      new TypeReference<List<ResourceMethod>>(){});
+  private static final ObjectReader TRANSFER_CLASSES_READER = MAPPER.reader(
+      new TypeReference<Map<String, TransferClass>>(){});
+  private static final ObjectReader MANIFEST_READER = MAPPER.reader(DescriptorManifest.class);
+  private static final JfrEventType PARSE_EVENT = new JfrEventType(
+      "com.spotify.docgenerator.ParseDescriptor", "Parse Descriptor", "Report", "bytes");
+
+  private final Log log;
+  private final int threads;
+
+  DescriptorLoader(final Log log, final int threads) {
+    this.log = log;
+    this.threads = threads;
+  }
+
+  Map<String, TransferClass> loadTransferClasses(final List<String> paths)
+      throws MavenReportException {
+    final Map<String, TransferClass> allClasses = Maps.newHashMap();
+    for (final Map<String, TransferClass> classes : load(paths, "class file",
+        new Parser<Map<String, TransferClass>>() {
+          @Override
+          public Map<String, TransferClass> parse(String path, ByteBuffer buffer)
+              throws IOException {
+            return readTransferClasses(buffer);
+          }
+        })) {
+      allClasses.putAll(classes);
+    }
+    return allClasses;
+  }
+
+  /**
+   * Like {@link #loadTransferClasses}, but only finds where the classes are in the files, and
+   * reads each one when it is looked up.  Lookups may come from any thread.
+   */
+  Map<String, TransferClass> indexTransferClasses(final List<String> paths)
+      throws MavenReportException {
+    final TransferClassIndex index = new TransferClassIndex();
+    for (final Map<String, TransferClassIndex.Location> locations : load(paths, "class file",
+        new Parser<Map<String, TransferClassIndex.Location>>() {
+          @Override
+          public Map<String, TransferClassIndex.Location> parse(String path, ByteBuffer buffer)
+              throws IOException {
+            return TransferClassIndex.locate(path, buffer);
+          }
+        })) {
+      index.putAll(locations);
+    }
+    return index.asMap();
+  }
+
+  List<ResourceMethod> loadResourceMethods(final List<String> paths)
+      throws MavenReportException {
+    final List<ResourceMethod> allMethods = Lists.newArrayList();
+    for (final List<ResourceMethod> methods : load(paths, "endpoint description file",
+        new Parser<List<ResourceMethod>>() {
+          @Override
+          public List<ResourceMethod> parse(String path, ByteBuffer buffer) throws IOException {
+            return readResourceMethods(buffer);
+          }
+        })) {
+      allMethods.addAll(methods);
+    }
+    return allMethods;
+  }
+
+  /**
+   * Like {@link #loadResourceMethods}, but the endpoints of JSON files are not kept: they are read
+   * again every time the file is iterated over, in {@link EndpointOrdering}.  Files that are not
+   * written in that order, e.g. by older processors, are read whole and sorted, as are binary
+   * files, whose endpoints share one table of strings anyway.
+   */
+  List<Iterable<ResourceMethod>> streamResourceMethods(final List<String> paths)
+      throws MavenReportException {
+    return load(paths, "endpoint description file", new Parser<Iterable<ResourceMethod>>() {
+      @Override
+      public Iterable<ResourceMethod> parse(String path, ByteBuffer buffer) throws IOException {
+        if (BinaryDescriptorReader.isBinary(buffer)) {
+          return EndpointOrdering.INSTANCE.sortedCopy(
+              BinaryDescriptorReader.readResourceMethods(buffer));
+        }
+        final ResourceMethodStream methods = new ResourceMethodStream(path, buffer);
+        if (EndpointOrdering.INSTANCE.isOrdered(methods)) {
+          return methods;
+        }
+        log.debug(path + " is not sorted, reading it whole");
+        return EndpointOrdering.INSTANCE.sortedCopy(methods);
+      }
+    });
+  }
+
+  /**
+   * Read the endpoints from either a JSON or a binary descriptor, whichever the buffer holds.
+   */
+  static List<ResourceMethod> readResourceMethods(final ByteBuffer buffer) throws IOException {
+    if (BinaryDescriptorReader.isBinary(buffer)) {
+      return BinaryDescriptorReader.readResourceMethods(buffer);
+    }
+    return RESOURCE_METHODS_READER.readValue(new ByteBufferInputStream(buffer));
+  }
+
+  /**
+   * Read the classes from either a JSON or a binary descriptor, whichever the buffer holds.
+   */
+  static Map<String, TransferClass> readTransferClasses(final ByteBuffer buffer)
+      throws IOException {
+    if (BinaryDescriptorReader.isBinary(buffer)) {
+      return BinaryDescriptorReader.readTransferClasses(buffer);
+    }
+    return TRANSFER_CLASSES_READER.readValue(new ByteBufferInputStream(buffer));
+  }
+
+  static DescriptorManifest readManifest(final String path) throws IOException {
+    return MANIFEST_READER.readValue(new File(path));
+  }
+
+  /**
+   * The paths of the shards of a kind in a manifest, which are relative to the manifest.
+   */
+  static List<String> shardPaths(final String manifestPath, final DescriptorManifest manifest,
+                                 final String kind) {
+    final File directory = new File(manifestPath).getAbsoluteFile().getParentFile();
+    final List<String> paths = Lists.newArrayList();
+    for (final DescriptorManifest.Shard shard : manifest.getShards()) {
+      if (kind.equals(shard.getKind())) {
+        paths.add(new File(directory, shard.getResource()).getPath());
+      }
+    }
+    return paths;
+  }
+
+  /**
+   * Map the whole file into memory, rather than copying it onto the heap.  The mapping stays
+   * valid after the file is closed, for as long as the buffer is reachable.
+   */
+  static ByteBuffer map(final String path) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException(path + " is too large to map: " + size + " bytes");
+      }
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+  }
+
+  private interface Parser<T> {
+    T parse(String path, ByteBuffer buffer) throws IOException;
+  }
+
+  /**
+   * Parse every file on a pool of at most {@code threads} threads, returning the results in the
+   * same order as the paths.
+   */
+  private <T> List<T> load(final List<String> paths, final String description,
+                           final Parser<T> parser) throws MavenReportException {
+    final List<T> results = Lists.newArrayListWithCapacity(paths.size());
+    if (paths.isEmpty()) {
+      return results;
+    }
+
+    final ForkJoinPool pool = new ForkJoinPool(Math.max(1, Math.min(threads, paths.size())));
+    try {
+      final List<ForkJoinTask<T>> tasks = Lists.newArrayListWithCapacity(paths.size());
+      for (final String path : paths) {
+        tasks.add(pool.submit(new Callable<T>() {
+          @Override
+          public T call() throws IOException {
+            log.debug("looking at " + description + ": " + path);
+            try (JfrEventType.Span span = PARSE_EVENT.begin(path)) {
+              final ByteBuffer buffer = map(path);
+              span.setValue(buffer.remaining());
+              return parser.parse(path, buffer);
+            }
+          }
+        }));
+      }
+
+      for (int i = 0; i < paths.size(); i++) {
+        try {
+          results.add(tasks.get(i).get());
+        } catch (ExecutionException e) {
+          throw new MavenReportException("failed opening input file " + paths.get(i),
+              e.getCause());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new MavenReportException("interrupted loading " + paths.get(i), e);
+        }
+      }
+      return results;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+}
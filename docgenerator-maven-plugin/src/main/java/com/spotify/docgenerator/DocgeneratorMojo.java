@@ -21,22 +21,23 @@
 
 package com.spotify.docgenerator;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
-import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
-
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.common.io.Files;
+import com.google.common.math.IntMath;
+import com.google.common.util.concurrent.Futures;
 
 import edu.emory.mathcs.backport.java.util.Collections;
 
 import org.apache.maven.doxia.sink.Sink;
+import org.apache.maven.doxia.sink.XhtmlBaseSink;
 import org.apache.maven.doxia.siterenderer.Renderer;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.Component;
@@ -46,17 +47,21 @@ import org.apache.maven.project.MavenProject;
 import org.apache.maven.reporting.AbstractMavenReport;
 import org.apache.maven.reporting.MavenReportException;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
-import java.util.Comparator;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.RoundingMode;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  */
@@ -86,19 +91,118 @@ public class DocgeneratorMojo extends AbstractMavenReport {
   @Parameter(property = "restEndpointsFiles")
   private List<String> restEndpointsFiles;
 
+  /**
+   * Paths to DescriptorManifests, written by the processor in sharded mode.  The shards they
+   * list are read along with the JSONClasses and RESTEndpoints files.
+   */
+  @Parameter(property = "manifestFiles")
+  private List<String> manifestFiles;
+
   /**
    * Jarfile paths for enums and the like.
    */
   @Parameter(property = "jarFiles")
   private List<String> jarFiles;
 
+  /**
+   * Number of threads used to load the descriptor files and render the report.  Zero means one
+   * per processor.
+   */
+  @Parameter(property = "threads", defaultValue = "0")
+  private int threads;
+
+  /**
+   * Read transfer classes from the JSONClasses files one at a time as they are rendered, instead
+   * of all of them up front, for class files too large to keep in memory.
+   */
+  @Parameter(property = "lazyClasses", defaultValue = "false")
+  private boolean lazyClasses;
+
+  /**
+   * Read endpoints from the RESTEndpoints files as they are rendered, merging the files, which the
+   * processor writes sorted, instead of loading and sorting all of them up front.  For endpoint
+   * files too large to keep in memory.  Paginated reports load them all anyway.
+   */
+  @Parameter(property = "streamEndpoints", defaultValue = "false")
+  private boolean streamEndpoints;
+
+  /**
+   * Reuse the previously generated report if none of its inputs have changed.
+   */
+  @Parameter(property = "skipUnchanged", defaultValue = "true")
+  private boolean skipUnchanged;
+
+  /**
+   * Split the report into an index page, pages of endpoints by the first segment of their path,
+   * and pages of types by package.  Needs to run as part of the site.
+   */
+  @Parameter(property = "paginate", defaultValue = "false")
+  private boolean paginate;
+
+  /**
+   * The most endpoints or types on one page of a paginated report.  Larger groups are split.
+   */
+  @Parameter(property = "pageSize", defaultValue = "200")
+  private int pageSize;
+
+  /**
+   * Where to keep rendered endpoints and types between runs, so that only the ones that changed
+   * are rendered again.  Point it outside the build directory to keep it across clean builds.
+   */
+  @Parameter(property = "renderCacheFile",
+      defaultValue = "${project.build.directory}/docgenerator/render-cache.bin")
+  private File renderCacheFile;
+
+  /**
+   * The most bytes of rendered HTML to keep in the render cache.  Zero turns it off.
+   */
+  @Parameter(property = "renderCacheSize", defaultValue = "67108864")
+  private long renderCacheSize;
+
   /**
    * Location of the file.
    */
   @Parameter(defaultValue = "${project.build.directory}", property = "outputDir", required = true)
   private File outputDirectory;
 
-  private URLClassLoader pluginClassLoader;
+  private JarTypeIndex jarTypeIndex;
+
+  private ReportMetrics metrics = new ReportMetrics();
+
+  /**
+   * The manifests read from {@link #manifestFiles}, by path.
+   */
+  private Map<String, DescriptorManifest> manifests = ImmutableMap.of();
+
+  /**
+   * In a paginated report, the page every type is documented on.
+   */
+  private Map<String, String> typePageNames = ImmutableMap.of();
+
+  /**
+   * The types the report documents, the only ones javadoc links are rendered for.
+   */
+  private Set<String> documentedTypes = ImmutableSet.of();
+
+  /**
+   * Rendered sections from previous runs, while rendering, if enabled.
+   */
+  private RenderCache renderCache;
+
+  /**
+   * The HTML for every type shown so far, which depends on {@link #typePageNames} as well.
+   */
+  private final ConcurrentMap<TypeDescriptor, String> typeHtml = Maps.newConcurrentMap();
+
+  /**
+   * While the report is being kept for the next run, a line for the fingerprint file for every
+   * page written so far.
+   */
+  private List<String> keptPages;
+
+  private int pages;
+
+  private long outputBytes;
 
   private final Log log;
 
@@ -115,8 +219,22 @@ public class DocgeneratorMojo extends AbstractMavenReport {
       .addAll(PLAIN_TYPE_MAP.keySet())
       .add("java.util.Map")
       .add("java.util.List")
+      .add("com.google.common.base.Optional")
+      .add("void")
       .build();
 
+  /**
+   * The most endpoints rendered together, on the threads of the pool.
+   */
+  private static final int ENDPOINT_BATCH_SIZE = 4096;
+
+  private static final JfrEventType RENDER_ENDPOINT_EVENT = new JfrEventType(
+      "com.spotify.docgenerator.RenderEndpoint", "Render Endpoint", "Report");
+  private static final JfrEventType RENDER_CLASS_EVENT = new JfrEventType(
+      "com.spotify.docgenerator.RenderClass", "Render Class", "Report");
+  private static final JfrEventType RESOLVE_TYPE_EVENT = new JfrEventType(
+      "com.spotify.docgenerator.ResolveType", "Resolve Type", "Report");
+
   public DocgeneratorMojo() {
     super();
     log = getLog();
@@ -142,169 +260,830 @@ public class DocgeneratorMojo extends AbstractMavenReport {
     if (canGenerateReport()) {
       final Sink sink = getSink();
       log.debug("starting report....................");
-      final ObjectMapper mapper = new ObjectMapper();
+      metrics = new ReportMetrics();
+      pages = 0;
+      outputBytes = 0;
+
+      final boolean paginated = paginate && getSinkFactory() != null;
+      if (paginate && !paginated) {
+        log.warn("Paginated output needs the site plugin to create the pages, "
+                 + "generating a single page instead");
+      }
 
-      documentRestEndpoints(sink, mapper);
-      documentTransferClasses(sink, mapper);
+      long t = System.nanoTime();
+      manifests = readManifests();
+      final String fingerprint = skipUnchanged ? computeFingerprint(paginated) : null;
+      final List<String> unchangedPages = readUnchangedPages(fingerprint);
+      t = metrics.phase("fingerprint", t);
+      if (unchangedPages != null) {
+        log.info("Inputs unchanged, reusing the previously generated report");
+        metrics.setReused(true);
+        copyPages(sink, unchangedPages);
+      } else {
+        startKeeping(fingerprint);
+        render(paginated, sink);
+        saveFingerprint(fingerprint);
+      }
+      metrics.count("pages", pages);
+      if (skipUnchanged) {
+        metrics.count("outputBytes", outputBytes);
+      }
 
       log.debug("Closing up report....................");
 
       sink.flush();
       sink.close();
+
+      log.info(metrics.summary());
+      final File metricsFile = new File(getReportOutputDirectory(),
+                                        getOutputName() + "-metrics.json");
+      try {
+        metrics.writeTo(metricsFile);
+      } catch (IOException e) {
+        log.warn("could not write " + metricsFile, e);
+      }
     }
   }
 
-  private void documentTransferClasses(final Sink sink, final ObjectMapper mapper)
-      throws MavenReportException {
+  /**
+   * Load the descriptors and render the report into the sink, and the other pages of a paginated
+   * report into sinks of their own.
+   */
+  private void render(final boolean paginated, final Sink sink) throws MavenReportException {
+    final DescriptorLoader loader = new DescriptorLoader(log, getThreads());
+
+    long t = System.nanoTime();
+    final List<String> classFiles = descriptorFiles(
+        jsonClassesFiles, DescriptorManifest.KIND_TRANSFER_CLASSES);
+    final List<String> endpointFiles = descriptorFiles(
+        restEndpointsFiles, DescriptorManifest.KIND_RESOURCE_METHODS);
+    final boolean streamed = streamEndpoints && !paginated;
+    if (streamEndpoints && !streamed) {
+      log.warn("Paginated output needs every endpoint to lay out the pages, "
+               + "loading all of them instead of streaming");
+    }
+    final List<ResourceMethod> allMethods = streamed
+        ? null : loader.loadResourceMethods(endpointFiles);
+    final List<Iterable<ResourceMethod>> endpointStreams = streamed
+        ? loader.streamResourceMethods(endpointFiles) : null;
+    final Map<String, TransferClass> allClasses = lazyClasses
+        ? loader.indexTransferClasses(classFiles)
+        : loader.loadTransferClasses(classFiles);
+    t = metrics.phase("load", t);
+
+    if (renderCacheFile != null && renderCacheSize > 0) {
+      renderCache = RenderCache.open(renderCacheFile, renderCacheSize, log);
+      metrics.phase("loadRenderCache", t);
+    }
+
+    final ForkJoinPool pool = new ForkJoinPool(getThreads());
+    try {
+      if (paginated) {
+        renderPages(sink, allMethods, allClasses, pool);
+      } else {
+        writePage(sink, getOutputName(), null, new PageBody() {
+          @Override
+          public void render(final Sink bodySink) {
+            if (streamed) {
+              renderMergedReport(bodySink, endpointStreams, allClasses, pool);
+            } else {
+              renderReport(bodySink, allMethods, allClasses, pool);
+            }
+          }
+        });
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    if (renderCache != null) {
+      t = System.nanoTime();
+      renderCache.save();
+      metrics.phase("saveRenderCache", t);
+      metrics.count("renderCacheHits", renderCache.getHits());
+      metrics.count("renderCacheMisses", renderCache.getMisses());
+      renderCache = null;
+    }
+  }
+
+  private static String finish(final Sink sink, final StringWriter out) {
+    sink.flush();
+    sink.close();
+    return out.toString();
+  }
+
+  /**
+   * Render already loaded descriptors into the sink, rendering sections on the threads of the
+   * pool.  Kept separate from the loading so the rendering can be exercised on its own, e.g. by
+   * the benchmarks.
+   */
+  void renderReport(final Sink sink, final List<ResourceMethod> allMethods,
+                    final Map<String, TransferClass> allClasses, final ForkJoinPool pool) {
+    sortEndpoints(allMethods);
+    metrics.count("endpoints", allMethods.size());
+    renderSortedReport(sink, allMethods, allMethods, allClasses, pool);
+  }
+
+  /**
+   * Render a report from endpoint files that are each in {@link EndpointOrdering}, merging them
+   * while rendering rather than holding every endpoint.  The files are read once for the types
+   * they refer to, once for the table of contents and once more for the endpoints.
+   */
+  private void renderMergedReport(final Sink sink, final List<Iterable<ResourceMethod>> files,
+                                  final Map<String, TransferClass> allClasses,
+                                  final ForkJoinPool pool) {
+    final Iterable<ResourceMethod> merged = new Iterable<ResourceMethod>() {
+      @Override
+      public Iterator<ResourceMethod> iterator() {
+        return new SortedMerge<ResourceMethod>(files, EndpointOrdering.INSTANCE);
+      }
+    };
+    final int endpoints = renderSortedReport(sink, Iterables.concat(files), merged, allClasses,
+                                             pool);
+    metrics.count("endpoints", endpoints);
+  }
 
-    final Set<String> knownClasses = Sets.newHashSet();
-    final Set<String> referencedClasses = Sets.newHashSet();
+  /**
+   * Render the endpoints, which come in {@link EndpointOrdering} from {@code sorted}, and in any
+   * order from {@code unsorted}, followed by the types.  Returns the number of endpoints.
+   */
+  private int renderSortedReport(final Sink sink, final Iterable<ResourceMethod> unsorted,
+                                 final Iterable<ResourceMethod> sorted,
+                                 final Map<String, TransferClass> allClasses,
+                                 final ForkJoinPool pool) {
+    final TypeGraph graph = typeGraph(unsorted, allClasses);
+    heading1(sink, "REST Endpoints");
+    endpointTableOfContents(sink, sorted);
+    final int endpoints = renderEndpoints(sink, sorted, pool);
 
     heading1(sink, "Transfer Classes");
+    typeTableOfContents(sink, graph.getDocumentedTypes());
+    renderTypes(sink, graph.getDocumentedTypes(), allClasses, graph, pool);
+    return endpoints;
+  }
+
+  /**
+   * Render already loaded descriptors as an index page into the sink, and pages of endpoints by
+   * path prefix and of types by package, each at most {@link #pageSize} long, into sinks of their
+   * own.  Pages are written one at a time.
+   */
+  private void renderPages(final Sink sink, final List<ResourceMethod> allMethods,
+                           final Map<String, TransferClass> allClasses, final ForkJoinPool pool)
+      throws MavenReportException {
+    sortEndpoints(allMethods);
+    metrics.count("endpoints", allMethods.size());
+    final TypeGraph graph = typeGraph(allMethods, allClasses);
+    final List<String> typeNames = graph.getDocumentedTypes();
 
-    final Map<String, TransferClass> allClasses = loadClasses(mapper);
-    knownClasses.addAll(allClasses.keySet());
-    for (TransferClass transferClass : allClasses.values()) {
-      if (transferClass.getMembers() != null) {
-        for (TransferMember member : transferClass.getMembers()) {
-          spiderKnownTypes(member.getType(), referencedClasses);
+    final Set<String> usedNames = Sets.newHashSet(getOutputName());
+    final List<String> pathPrefixes = Lists.newArrayList();
+    for (final ResourceMethod method : allMethods) {
+      pathPrefixes.add(ReportPage.pathPrefix(method.getPath()));
+    }
+    final List<ReportPage<ResourceMethod>> endpointPages = ReportPage.paginate(
+        getOutputName() + "-endpoints", allMethods, pathPrefixes, pageSize, usedNames);
+    final List<String> packages = Lists.newArrayList();
+    for (final String typeName : typeNames) {
+      packages.add(ReportPage.packageName(typeName));
+    }
+    final List<ReportPage<String>> typePages = ReportPage.paginate(
+        getOutputName() + "-types", typeNames, packages, pageSize, usedNames);
+
+    typePageNames = Maps.newHashMap();
+    typeHtml.clear();
+    for (final ReportPage<String> page : typePages) {
+      for (final String typeName : page.getItems()) {
+        typePageNames.put(typeName, page.getOutputName());
+      }
+    }
+
+    writePage(sink, getOutputName(), null, new PageBody() {
+      @Override
+      public void render(final Sink bodySink) {
+        heading1(bodySink, "REST Endpoints");
+        pageList(bodySink, endpointPages);
+        heading1(bodySink, "Transfer Classes");
+        pageList(bodySink, typePages);
+      }
+    });
+
+    for (final ReportPage<ResourceMethod> page : endpointPages) {
+      final String title = "REST Endpoints: " + page.getTitle();
+      final Sink pageSink = createPageSink(page.getOutputName());
+      writePage(pageSink, page.getOutputName(), title, new PageBody() {
+        @Override
+        public void render(final Sink bodySink) {
+          indexLink(bodySink);
+          heading1(bodySink, title);
+          endpointTableOfContents(bodySink, page.getItems());
+          renderEndpoints(bodySink, page.getItems(), pool);
+        }
+      });
+      closePageSink(pageSink);
+    }
+    for (final ReportPage<String> page : typePages) {
+      final String title = "Transfer Classes: " + page.getTitle();
+      final Sink pageSink = createPageSink(page.getOutputName());
+      writePage(pageSink, page.getOutputName(), title, new PageBody() {
+        @Override
+        public void render(final Sink bodySink) {
+          indexLink(bodySink);
+          heading1(bodySink, title);
+          typeTableOfContents(bodySink, page.getItems());
+          renderTypes(bodySink, page.getItems(), allClasses, graph, pool);
+        }
+      });
+      closePageSink(pageSink);
+    }
+  }
+
+  /**
+   * What goes between the head and the foot of a page.
+   */
+  private interface PageBody {
+    void render(Sink sink);
+  }
+
+  /**
+   * Write a page into its sink, with a head with the title unless it is the report's own page.
+   * If the report is kept for the next run, the body is rendered as HTML, which is copied into the
+   * sink and into the page's body file as it is written.
+   */
+  private void writePage(final Sink pageSink, final String pageName, final String title,
+                         final PageBody body) {
+    startPage(pageSink, title);
+    if (skipUnchanged) {
+      final SinkWriter writer = new SinkWriter(pageSink, bodyCopy(pageName));
+      final Sink htmlSink = new XhtmlBaseSink(new BufferedWriter(writer));
+      body.render(htmlSink);
+      htmlSink.flush();
+      htmlSink.close();
+      outputBytes += writer.getBytes();
+      if (keptPages != null) {
+        try {
+          writer.checkCopy();
+          keptPages.add((title == null) ? pageName : pageName + " " + title);
+        } catch (IOException e) {
+          stopKeeping(e);
         }
       }
+    } else {
+      body.render(pageSink);
     }
-    tableOfContentsHeader(sink);
+    endPage(pageSink, title);
+  }
+
+  private void startPage(final Sink pageSink, final String title) {
+    if (title != null) {
+      pageSink.head();
+      pageSink.title();
+      pageSink.text(title);
+      pageSink.title_();
+      pageSink.head_();
+      pageSink.body();
+    }
+  }
+
+  private void endPage(final Sink pageSink, final String title) {
+    if (title != null) {
+      pageSink.body_();
+    }
+    pages++;
+  }
+
+  private Sink createPageSink(final String pageName) throws MavenReportException {
+    try {
+      return getSinkFactory().createSink(getReportOutputDirectory(), pageName + ".html");
+    } catch (IOException e) {
+      throw new MavenReportException("failed writing report page " + pageName, e);
+    }
+  }
+
+  private static void closePageSink(final Sink pageSink) {
+    pageSink.flush();
+    pageSink.close();
+  }
+
+  private void pageList(final Sink sink, final List<? extends ReportPage<?>> pages) {
     sink.list();
-    final Set<String> everyClasses = Sets.newHashSet(knownClasses);
-    everyClasses.addAll(referencedClasses);
-    final List<String> everyClassesList = Lists.newArrayList(everyClasses);
-    Collections.sort(everyClassesList);
-    for (final String className : everyClassesList) {
-      if (SKIP_TYPES.contains(className)) {
-        continue;
-      }
+    for (final ReportPage<?> page : pages) {
       sink.listItem();
-      sink.link("#" + typeAnchor(className));
-      sink.text(className);
+      sink.link(page.getOutputName() + ".html");
+      sink.text(page.getTitle());
       sink.link_();
+      sink.text(" (" + page.getItems().size() + ")");
       sink.listItem_();
     }
     sink.list_();
+  }
+
+  private void indexLink(final Sink sink) {
+    sink.paragraph();
+    sink.link(getOutputName() + ".html");
+    sink.text("Back to the index");
+    sink.link_();
+    sink.paragraph_();
+  }
 
-    for (final String className : everyClassesList) {
-      // Don't document things like boolean, etc.
-      if (SKIP_TYPES.contains(className)) {
-        continue;
+  private Map<String, DescriptorManifest> readManifests() throws MavenReportException {
+    final Map<String, DescriptorManifest> read = Maps.newLinkedHashMap();
+    if (manifestFiles == null) {
+      return read;
+    }
+    for (final String path : manifestFiles) {
+      try {
+        read.put(path, DescriptorLoader.readManifest(path));
+      } catch (IOException e) {
+        throw new MavenReportException("failed reading descriptor manifest " + path, e);
       }
-      final TransferClass transferClass = allClasses.get(className);
-      if (transferClass != null) {
-
-        classHeading(sink, className);
-
-        outputJavadoc(sink, transferClass.getJavadoc());
-
-        if (transferClass.getMembers() != null) {
-          sink.paragraph();
-          sink.monospaced();
-          sink.text(className + " {");
-          sink.lineBreak();
-
-          for (TransferMember member : transferClass.getMembers()) {
-            sink.nonBreakingSpace();
-            sink.nonBreakingSpace();
-            sink.nonBreakingSpace();
-            sink.nonBreakingSpace();
-            sink.text("\"" + member.getName() + "\" : ");
-            showType(sink, member.getType());
-            sink.lineBreak();
-          }
-          sink.text("}");
-          sink.monospaced_();
-          sink.paragraph_();
+    }
+    return read;
+  }
+
+  /**
+   * The configured descriptor files of a kind, followed by the shards of that kind in the
+   * manifests.
+   */
+  private List<String> descriptorFiles(final List<String> configured, final String kind) {
+    final List<String> paths = Lists.newArrayList();
+    if (configured != null) {
+      paths.addAll(configured);
+    }
+    for (final Map.Entry<String, DescriptorManifest> manifest : manifests.entrySet()) {
+      paths.addAll(DescriptorLoader.shardPaths(manifest.getKey(), manifest.getValue(), kind));
+    }
+    return paths;
+  }
+
+  /**
+   * The fingerprint of the report inputs, or null if they can't all be read, in which case
+   * loading them will fail with a proper error soon enough.
+   */
+  private String computeFingerprint(final boolean paginated) {
+    try {
+      return new ReportFingerprint()
+          .putDescriptorFiles("jsonClasses", jsonClassesFiles)
+          .putDescriptorFiles("restEndpoints", restEndpointsFiles)
+          .putManifests(manifests)
+          .putJarFiles(jarFiles)
+          .putString("pages", paginated ? String.valueOf(pageSize) : "single")
+          .hash();
+    } catch (IOException e) {
+      log.debug("could not fingerprint report inputs", e);
+      return null;
+    }
+  }
+
+  /**
+   * Holds the fingerprint of the kept bodies, followed by a line for every page in the order they
+   * were written: its name, and its title unless it is the report's own page.
+   */
+  private File getFingerprintFile() {
+    return new File(getReportOutputDirectory(), getOutputName() + ".fingerprint");
+  }
+
+  private File getBodyFile(final String pageName) {
+    return new File(getReportOutputDirectory(), pageName + ".body");
+  }
+
+  /**
+   * The pages kept by the previous run, if they were generated from the same inputs, as their
+   * lines in the fingerprint file.
+   */
+  private List<String> readUnchangedPages(final String fingerprint) {
+    if (!skipUnchanged || fingerprint == null) {
+      return null;
+    }
+    final File fingerprintFile = getFingerprintFile();
+    if (!fingerprintFile.isFile()) {
+      return null;
+    }
+    try {
+      final List<String> lines = Files.readLines(fingerprintFile, Charsets.UTF_8);
+      if (lines.size() < 2 || !fingerprint.equals(lines.get(0).trim())
+          || !getOutputName().equals(lines.get(1))) {
+        return null;
+      }
+      for (final String line : lines.subList(1, lines.size())) {
+        // Only the report's own page goes without a title
+        if ((pageTitle(line) == null) != line.equals(getOutputName())
+            || !getBodyFile(pageName(line)).isFile()) {
+          return null;
         }
+      }
+      return lines.subList(1, lines.size());
+    } catch (IOException e) {
+      log.debug("could not read previous report", e);
+      return null;
+    }
+  }
 
-        sink.definitionList_();
-      } else if (!knownClasses.contains(className)) {
-        processEnum(sink, className);
+  private static String pageName(final String line) {
+    final int space = line.indexOf(' ');
+    return (space < 0) ? line : line.substring(0, space);
+  }
+
+  private static String pageTitle(final String line) {
+    final int space = line.indexOf(' ');
+    return (space < 0) ? null : line.substring(space + 1);
+  }
+
+  /**
+   * Copy the kept bodies into the pages, a bit at a time.
+   */
+  private void copyPages(final Sink sink, final List<String> lines) throws MavenReportException {
+    for (final String line : lines) {
+      final String pageName = pageName(line);
+      final String title = pageTitle(line);
+      final Sink pageSink = (title == null) ? sink : createPageSink(pageName);
+      startPage(pageSink, title);
+      final SinkWriter writer = new SinkWriter(pageSink, null);
+      try {
+        Files.asCharSource(getBodyFile(pageName), Charsets.UTF_8).copyTo(writer);
+      } catch (IOException e) {
+        throw new MavenReportException("failed reading previous report page " + pageName, e);
+      }
+      outputBytes += writer.getBytes();
+      endPage(pageSink, title);
+      if (pageSink != sink) {
+        closePageSink(pageSink);
       }
     }
   }
 
-  private void spiderKnownTypes(TypeDescriptor type, Set<String> referencedClasses) {
-    referencedClasses.add(type.getName());
-    if (type.getTypeArguments() == null) {
+  /**
+   * Keep the bodies of the pages about to be written for the next run, if that is enabled.  The
+   * old fingerprint goes first, so that partially written bodies never look up to date.
+   */
+  private void startKeeping(final String fingerprint) {
+    keptPages = null;
+    if (!skipUnchanged) {
       return;
     }
-    for (final TypeDescriptor descriptor : type.getTypeArguments()) {
-      spiderKnownTypes(descriptor, referencedClasses);
+    final File fingerprintFile = getFingerprintFile();
+    try {
+      if (fingerprintFile.exists() && !fingerprintFile.delete()) {
+        throw new IOException("could not delete " + fingerprintFile);
+      }
+      if (fingerprint != null) {
+        Files.createParentDirs(fingerprintFile);
+        keptPages = Lists.newArrayList();
+      }
+    } catch (IOException e) {
+      stopKeeping(e);
     }
   }
 
-  private Map<String, TransferClass> loadClasses(final ObjectMapper mapper)
-      throws MavenReportException {
-    final Map<String, TransferClass> allClasses = Maps.newHashMap();
+  /**
+   * Where to copy the body of a page to, or null if it isn't kept.
+   */
+  private Writer bodyCopy(final String pageName) {
+    if (keptPages == null) {
+      return null;
+    }
+    try {
+      return Files.newWriter(getBodyFile(pageName), Charsets.UTF_8);
+    } catch (IOException e) {
+      stopKeeping(e);
+      return null;
+    }
+  }
 
-    for (final String path : jsonClassesFiles) {
-      log.debug("looking at class file: " + path);
-      try (FileInputStream ist = new FileInputStream(path)) {
-        final Map<String, TransferClass> v = readTransferClasses(mapper, ist);
-        allClasses.putAll(v);
-      } catch (IOException e) {
-        throw new MavenReportException("failed opening input file " + path, e);
+  private void stopKeeping(final IOException e) {
+    log.warn("could not save report for reuse", e);
+    keptPages = null;
+  }
+
+  /**
+   * Write the fingerprint of the kept bodies, now that they are all written.
+   */
+  private void saveFingerprint(final String fingerprint) {
+    if (keptPages == null) {
+      return;
+    }
+    try {
+      Files.write(fingerprint + "\n" + Joiner.on("\n").join(keptPages) + "\n",
+                  getFingerprintFile(), Charsets.UTF_8);
+    } catch (IOException e) {
+      log.warn("could not save report for reuse", e);
+    }
+    keptPages = null;
+  }
+
+  void setThreads(final int threads) {
+    this.threads = threads;
+  }
+
+  private int getThreads() {
+    return (threads > 0) ? threads : Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Work out which types to document: the transfer classes, and every type reachable from them
+   * or from the endpoints, short of those there is nothing to say about.  Types that are not in
+   * the descriptors are looked up in the jar files right away, so rendering them needs nothing
+   * but the result.
+   */
+  private TypeGraph typeGraph(final Iterable<ResourceMethod> allMethods,
+                              final Map<String, TransferClass> allClasses) {
+    long t = System.nanoTime();
+    // Don't document things like boolean, etc.
+    final TypeGraph graph = new TypeGraph(allMethods, allClasses, SKIP_TYPES);
+    t = metrics.phase("spiderTypes", t);
+    metrics.count("types", graph.getDocumentedTypes().size());
+    documentedTypes = ImmutableSet.copyOf(graph.getDocumentedTypes());
+
+    for (final String className : graph.getExternalTypes()) {
+      try (final JfrEventType.Span span = RESOLVE_TYPE_EVENT.begin(className)) {
+        graph.resolved(className, getJarTypeIndex().get(className));
       }
     }
-    return allClasses;
+    metrics.phase("resolveTypes", t);
+    metrics.count("unresolvedTypes", graph.getUnresolvedTypes().size());
+    return graph;
   }
 
-  private void restHeading(final Sink sink, String method, String path) {
-    heading3WithAnchor(sink, endpointAnchor(method, path), method.toUpperCase() + " " + path);
+  private void typeTableOfContents(final Sink sink, final List<String> typeNames) {
+    tableOfContentsHeader(sink);
+    sink.list();
+    for (final String className : typeNames) {
+      sink.listItem();
+      sink.link("#" + typeAnchor(className));
+      sink.text(className);
+      sink.link_();
+      sink.listItem_();
+    }
+    sink.list_();
   }
 
-  private void documentRestEndpoints(final Sink sink, final ObjectMapper mapper)
-      throws MavenReportException {
-    heading1(sink, "REST Endpoints");
+  private void renderTypes(final Sink sink, final List<String> typeNames,
+                           final Map<String, TransferClass> allClasses, final TypeGraph graph,
+                           final ForkJoinPool pool) {
+    final long t = System.nanoTime();
+    final List<Section> sections = Lists.newArrayListWithCapacity(typeNames.size());
+    for (final String className : typeNames) {
+      if (allClasses.containsKey(className)) {
+        // Classes may be read as they are looked up, so don't hold on to them
+        sections.add(new Section() {
+          @Override
+          public String cacheKey() {
+            final TransferClass transferClass = allClasses.get(className);
+            if (transferClass == null) {
+              return null;
+            }
+            final List<TypeDescriptor> memberTypes = Lists.newArrayList();
+            if (transferClass.getMembers() != null) {
+              for (final TransferMember member : transferClass.getMembers()) {
+                memberTypes.add(member.getType());
+              }
+            }
+            return RenderCache.key("type " + className, transferClass,
+                                   linkedPages(memberTypes, transferClass.getDoc()));
+          }
 
-    final List<ResourceMethod> allMethods = Lists.newArrayList();
-    for (final String path : restEndpointsFiles) {
-      log.debug("looking at endpoint description file: " + path);
-      try (FileInputStream ist = new FileInputStream(path)) {
-        final List<ResourceMethod> resources = readResourceMethods(mapper, ist);
-        allMethods.addAll(resources);
+          @Override
+          public void render(final Sink sectionSink) {
+            final TransferClass transferClass = allClasses.get(className);
+            if (transferClass == null) {
+              return;
+            }
+            try (final JfrEventType.Span span = RENDER_CLASS_EVENT.begin(className)) {
+              handleTransferClass(sectionSink, className, transferClass);
+            }
+          }
+        });
+      } else {
+        final JarTypeIndex.TypeInfo type = graph.getResolvedType(className);
+        sections.add(new Section() {
+          @Override
+          public String cacheKey() {
+            // Only enums are worth caching, the rest is a line of text
+            return graph.getEnumTypes().contains(className)
+                   ? RenderCache.key("enum " + className, type.getEnumConstants(),
+                                     ImmutableMap.<String, String>of())
+                   : null;
+          }
 
-      } catch (IOException e) {
-        throw new MavenReportException("failed opening input file " + path, e);
+          @Override
+          public void render(final Sink sectionSink) {
+            try (final JfrEventType.Span span = RENDER_CLASS_EVENT.begin(className)) {
+              processEnum(sectionSink, className, type);
+            }
+          }
+        });
       }
     }
+    renderSections(sink, sections, pool);
+    metrics.phase("renderTransferClasses", t);
+  }
 
-    Collections.sort(allMethods, new Comparator<ResourceMethod>() {
-      @Override
-      public int compare(ResourceMethod o1, ResourceMethod o2) {
-        final int cmp = o1.getPath().compareTo(o2.getPath());
-        if (cmp != 0) {
-          return cmp;
+  /**
+   * A part of the report that only depends on its own descriptor, so it can be rendered on any
+   * thread.
+   */
+  private interface Section {
+    /**
+     * The render cache key for the section, or null to always render it.
+     */
+    String cacheKey();
+
+    void render(Sink sink);
+  }
+
+  /**
+   * The pages the types a section links to are on, in a paginated report, since the section's
+   * HTML depends on them as well.  Also the documented types its javadoc links to.
+   */
+  private Map<String, String> linkedPages(final List<TypeDescriptor> types, final Javadoc doc) {
+    final Set<String> names = Sets.newHashSet();
+    for (final TypeDescriptor type : types) {
+      if (type != null) {
+        spiderKnownTypes(type, names);
+      }
+    }
+    final Map<String, String> pages = Maps.newTreeMap();
+    for (final String name : names) {
+      final String page = typePageNames.get(name);
+      if (page != null) {
+        pages.put(name, page);
+      }
+    }
+    // Javadoc links also depend on whether their type is documented at all
+    for (final TypeDescriptor link : linkTypes(doc)) {
+      final String page = typePageNames.get(link.getName());
+      pages.put(link.getName(), (page == null) ? "" : page);
+    }
+    return pages;
+  }
+
+  /**
+   * Render the section into the sink, or copy it from the render cache if it is in there.
+   */
+  private void renderSection(final Sink sink, final Section section) {
+    final String key = (renderCache == null) ? null : section.cacheKey();
+    if (key == null) {
+      section.render(sink);
+      return;
+    }
+    String html = renderCache.get(key);
+    if (html == null) {
+      final StringWriter out = new StringWriter();
+      final Sink sectionSink = new XhtmlBaseSink(out);
+      section.render(sectionSink);
+      html = finish(sectionSink, out);
+      renderCache.put(key, html);
+    }
+    sink.rawText(html);
+  }
+
+  /**
+   * Render the sections on the threads of the pool, runs of them into a buffer each, and write
+   * the buffers to the sink in the order of the sections.
+   */
+  private void renderSections(final Sink sink, final List<Section> sections,
+                              final ForkJoinPool pool) {
+    final int threads = Math.min(pool.getParallelism(), sections.size());
+    if (threads <= 1) {
+      for (final Section section : sections) {
+        renderSection(sink, section);
+      }
+      return;
+    }
+
+    // A few runs per thread evens out sections of different sizes, without a buffer apiece
+    final int runSize = IntMath.divide(sections.size(), threads * 4, RoundingMode.CEILING);
+    final List<ForkJoinTask<String>> runs = Lists.newArrayList();
+    for (final List<Section> run : Lists.partition(sections, runSize)) {
+      runs.add(pool.submit(new Callable<String>() {
+        @Override
+        public String call() {
+          final StringWriter out = new StringWriter();
+          final Sink runSink = new XhtmlBaseSink(out);
+          for (final Section section : run) {
+            renderSection(runSink, section);
+          }
+          return finish(runSink, out);
         }
+      }));
+    }
+    for (final ForkJoinTask<String> run : runs) {
+      sink.rawText(Futures.getUnchecked(run));
+    }
+  }
+
+  private void handleTransferClass(Sink sink, String className, TransferClass transferClass) {
+    classHeading(sink, className);
 
-        return o1.getMethod().compareTo(o2.getMethod());
+    outputJavadoc(sink, transferClass.getDoc(), transferClass.getJavadoc());
+
+    if (transferClass.getMembers() != null) {
+      sink.paragraph();
+      sink.monospaced();
+      sink.text(className + " {");
+      sink.lineBreak();
+
+      for (TransferMember member : transferClass.getMembers()) {
+        sink.nonBreakingSpace();
+        sink.nonBreakingSpace();
+        sink.nonBreakingSpace();
+        sink.nonBreakingSpace();
+        sink.text("\"" + member.getName() + "\" : ");
+        showType(sink, member.getType());
+        sink.lineBreak();
       }
-    });
+      sink.text("}");
+      sink.monospaced_();
+      sink.paragraph_();
+    }
+
+    if (transferClass.getEnumConstants() != null) {
+      enumValues(sink, transferClass.getEnumConstants());
+    }
+
+    seeAlso(sink, transferClass.getDoc());
 
+    sink.definitionList_();
+  }
+
+  private void spiderKnownTypes(TypeDescriptor type, Set<String> referencedClasses) {
+    referencedClasses.add(type.getName());
+    for (final TypeDescriptor descriptor : type.getTypeArguments()) {
+      spiderKnownTypes(descriptor, referencedClasses);
+    }
+  }
+
+  private void restHeading(final Sink sink, String method, String path) {
+    heading3WithAnchor(sink, endpointAnchor(method, path), method.toUpperCase() + " " + path);
+  }
+
+  private void sortEndpoints(final List<ResourceMethod> allMethods) {
+    Collections.sort(allMethods, EndpointOrdering.INSTANCE);
+  }
+
+  private void endpointTableOfContents(final Sink sink, final Iterable<ResourceMethod> methods) {
     tableOfContentsHeader(sink);
     sink.list();
-    for (final ResourceMethod method : allMethods) {
+    for (final ResourceMethod method : methods) {
       sink.listItem();
       sink.link("#" + endpointAnchor(method.getMethod(), method.getPath()));
       sink.text(method.getMethod().toUpperCase() + " " + method.getPath());
       sink.link_();
+      if (method.getDoc() != null && method.getDoc().getSummary() != null) {
+        sink.text(" - ");
+        sink.rawText(method.getDoc().getSummary());
+      }
       sink.listItem_();
     }
     sink.list_();
+  }
 
-    for (final ResourceMethod method : allMethods) {
-      handleRestEndpoint(sink, method);
+  /**
+   * Render the endpoints a batch at a time, so that endpoints read while they are rendered are
+   * never all held at once.  Returns the number of endpoints.
+   */
+  private int renderEndpoints(final Sink sink, final Iterable<ResourceMethod> methods,
+                              final ForkJoinPool pool) {
+    final long t = System.nanoTime();
+    int count = 0;
+    for (final List<ResourceMethod> batch : Iterables.partition(methods, ENDPOINT_BATCH_SIZE)) {
+      renderSections(sink, endpointSections(batch), pool);
+      count += batch.size();
+    }
+    metrics.phase("renderEndpoints", t);
+    return count;
+  }
+
+  private List<Section> endpointSections(final List<ResourceMethod> methods) {
+    final List<Section> sections = Lists.newArrayListWithCapacity(methods.size());
+    for (final ResourceMethod method : methods) {
+      sections.add(new Section() {
+        @Override
+        public String cacheKey() {
+          final List<TypeDescriptor> types = Lists.newArrayList(method.getReturnType());
+          if (method.getArguments() != null) {
+            for (final ResourceArgument arg : method.getArguments()) {
+              types.add(arg.getType());
+            }
+          }
+          return RenderCache.key("endpoint", method, linkedPages(types, method.getDoc()));
+        }
+
+        @Override
+        public void render(final Sink sectionSink) {
+          try (final JfrEventType.Span span = RENDER_ENDPOINT_EVENT.begin(
+              method.getMethod() + " " + method.getPath())) {
+            handleRestEndpoint(sectionSink, method);
+          }
+        }
+      });
     }
+    return sections;
   }
 
   private void handleRestEndpoint(Sink sink, ResourceMethod method) {
     restHeading(sink, method.getMethod(), method.getPath());
-    outputJavadoc(sink, method.getJavadoc());
+    final Javadoc doc = method.getDoc();
+    outputJavadoc(sink, doc, method.getJavadoc());
     List<ResourceArgument> args = method.getArguments();
     if (args != null && !args.isEmpty()) {
       heading4(sink, "Arguments");
@@ -315,6 +1094,11 @@ public class DocgeneratorMojo extends AbstractMavenReport {
         boldText(sink, arg.getName());
         sink.text(" ");
         showType(sink, arg.getType());
+        final String description = paramDescription(doc, arg.getName());
+        if (description != null) {
+          sink.text(" - ");
+          sink.rawText(description);
+        }
         sink.listItem_();
       }
       sink.list_();
@@ -337,8 +1121,18 @@ public class DocgeneratorMojo extends AbstractMavenReport {
     showType(sink, method.getReturnType());
     sink.listItem_();
 
+    if (doc != null && doc.getReturns() != null) {
+      sink.listItem();
+      boldText(sink, "Description:");
+      sink.definition();
+      sink.rawText(doc.getReturns());
+      sink.listItem_();
+    }
+
     sink.list_();
 
+    seeAlso(sink, doc);
+
   }
 
   private void boldText(Sink sink, final String term) {
@@ -351,114 +1145,91 @@ public class DocgeneratorMojo extends AbstractMavenReport {
     heading3WithAnchor(sink, typeAnchor(className), "Type: " + className);
   }
 
-  private void processEnum(Sink sink, String className) {
-    Class<?> clazz = getClassForNameIsh(sink, className);
-    if (clazz == null) {
+  private void processEnum(Sink sink, String className, JarTypeIndex.TypeInfo type) {
+    if (type == null) {
       sink.text("Was not able to find class: " + className);
       sink.lineBreak();
       return;
     }
-    if (clazz.isEnum()) {
+    if (type.isEnum()) {
       classHeading(sink, className);
-      final Object[] constants = clazz.getEnumConstants();
-      final List<String> constantsWrapped = Lists.newArrayList();
-      for (Object c : constants) {
-        constantsWrapped.add("\"" + c + "\"");
-      }
-      sink.text("Enumerated Type.  Valid values are: ");
-      sink.monospaced();
-      sink.text(Joiner.on(", ").join(constantsWrapped));
-      sink.monospaced_();
-      sink.lineBreak();
+      enumValues(sink, type.getEnumConstants());
     } else {
-      sink.text("!??!?!!?" + clazz);
+      sink.text("!??!?!!?" + type);
       sink.lineBreak();
     }
 
   }
 
-  private Class<?> getClassForNameIsh(Sink sink, String className) {
-    try {
-      return getClassForName(className);
-    } catch (ClassNotFoundException e) {
-      final List<String> bits = Splitter.on(".").splitToList(className);
-      final String childClassName = Joiner.on('.').join(bits.subList(0, bits.size() - 1));
-      try {
-        Class<?> clazz = getClassForName(childClassName);
-        for (Class<?> clazzy : clazz.getDeclaredClasses()) {
-          if (className.equals(clazzy.getCanonicalName())) {
-            return clazzy;
-          }
-        }
-        return null;
-      } catch (ClassNotFoundException e1) {
-        sink.text(" -- can't find class");
-        sink.lineBreak();
-        return null;
-      } catch (MalformedURLException e1) {
-        sink.text(" -- inner url is hosed");
-        sink.lineBreak();
-        return null;
-      }
-    } catch (MalformedURLException e) {
-      sink.text(" -- url is hosed");
-      sink.lineBreak();
-      return null;
+  private void enumValues(Sink sink, List<String> constants) {
+    final List<String> constantsWrapped = Lists.newArrayList();
+    for (String c : constants) {
+      constantsWrapped.add("\"" + c + "\"");
     }
+    sink.text("Enumerated Type.  Valid values are: ");
+    sink.monospaced();
+    sink.text(Joiner.on(", ").join(constantsWrapped));
+    sink.monospaced_();
+    sink.lineBreak();
   }
 
+  /**
+   * Show the type, rendering it only the first time it is shown.  The same few type shapes turn
+   * up over and over.
+   */
   private void showType(Sink sink, TypeDescriptor type) {
+    String html = typeHtml.get(type);
+    if (html == null) {
+      final StringWriter out = new StringWriter();
+      final Sink typeSink = new XhtmlBaseSink(out);
+      renderType(typeSink, type);
+      html = finish(typeSink, out);
+      typeHtml.put(type, html);
+    }
+    sink.rawText(html);
+  }
+
+  private void renderType(Sink sink, TypeDescriptor type) {
     if (PLAIN_TYPE_MAP.containsKey(type.getName())) {
       sink.text(PLAIN_TYPE_MAP.get(type.getName()));
       return;
     }
 
-    if (type.getTypeArguments() == null || type.getTypeArguments().isEmpty()) {
+    if (type.getTypeArguments().isEmpty()) {
       typeLink(sink, type);
       return;
     }
 
     if ("java.util.Map".equals(type.getName())) {
       sink.text("{");
-      showType(sink, type.getTypeArguments().get(0));
+      renderType(sink, type.getTypeArguments().get(0));
       sink.text(" : ");
-      showType(sink, type.getTypeArguments().get(1));
+      renderType(sink, type.getTypeArguments().get(1));
       sink.text(", }");
       return;
     }
 
     if ("java.util.List".equals(type.getName())) {
       sink.text("[");
-      showType(sink, type.getTypeArguments().get(0));
+      renderType(sink, type.getTypeArguments().get(0));
       sink.text(", ]");
       return;
     }
 
     if ("com.google.common.base.Optional".equals(type.getName())) {
-      showType(sink, type.getTypeArguments().get(0));
+      renderType(sink, type.getTypeArguments().get(0));
       return;
     }
     sink.text("<??" + type.getName() + "??>");
   }
 
   private void typeLink(Sink sink, TypeDescriptor type) {
-    sink.link("#" + typeAnchor(type.getName()));
+    final String page = typePageNames.get(type.getName());
+    sink.link(((page == null) ? "" : page + ".html") + "#" + typeAnchor(type.getName()));
     sink.text(type.getName());
     sink.link_();
   }
 
-  private List<ResourceMethod> readResourceMethods(ObjectMapper mapper, FileInputStream ist)
-      throws JsonProcessingException, IOException {
-    final ObjectReader reader = mapper.reader(new TypeReference<List<ResourceMethod>>(){});
-    return reader.readValue(ist);
-  }
-
-  private Map<String, TransferClass> readTransferClasses(final ObjectMapper mapper,
-      FileInputStream ist) throws IOException, JsonProcessingException {
-    final ObjectReader reader = mapper.reader(new TypeReference<Map<String, TransferClass>>(){});
-    return reader.readValue(ist);
-  }
-
   private String endpointAnchor(String method, String path) {
     return method + "-" + path.replace("/", "-").replace("{", "-")
         .replace("}", "-");
@@ -472,10 +1243,65 @@ public class DocgeneratorMojo extends AbstractMavenReport {
     heading2(sink, "Table Of Contents");
   }
 
-  private void outputJavadoc(Sink sink, final String javadoc) {
-    sink.paragraph();
-    processJavadoc(sink, javadoc);
-    sink.paragraph_();
+  /**
+   * Output the parsed javadoc, which is HTML ready to go, or else the javadoc as it is in the
+   * source, from descriptors written before the processor parsed it.
+   */
+  private void outputJavadoc(Sink sink, final Javadoc doc, final String javadoc) {
+    if (doc == null || doc.getBody() == null) {
+      sink.paragraph();
+      processJavadoc(sink, javadoc);
+      sink.paragraph_();
+      return;
+    }
+    for (final String paragraph : doc.getBody()) {
+      sink.paragraph();
+      sink.rawText(paragraph);
+      sink.paragraph_();
+    }
+  }
+
+  private String paramDescription(final Javadoc doc, final String name) {
+    if (doc == null || doc.getParams() == null) {
+      return null;
+    }
+    for (final Javadoc.Param param : doc.getParams()) {
+      if (name.equals(param.getName())) {
+        return param.getDescription();
+      }
+    }
+    return null;
+  }
+
+  private void seeAlso(final Sink sink, final Javadoc doc) {
+    final List<TypeDescriptor> types = linkTypes(doc);
+    if (types.isEmpty()) {
+      return;
+    }
+    heading4(sink, "See Also");
+    sink.list();
+    for (final TypeDescriptor type : types) {
+      sink.listItem();
+      typeLink(sink, type);
+      sink.listItem_();
+    }
+    sink.list_();
+  }
+
+  /**
+   * The types the javadoc links to that the report documents, for linking to them like any other
+   * type.
+   */
+  private List<TypeDescriptor> linkTypes(final Javadoc doc) {
+    final List<TypeDescriptor> types = Lists.newArrayList();
+    if (doc != null && doc.getLinks() != null) {
+      for (final String link : doc.getLinks()) {
+        if (documentedTypes.contains(link)) {
+          types.add(new TypeDescriptor(link, ImmutableList.<TypeDescriptor>of()));
+        }
+      }
+    }
+    return types;
   }
 
   private void processJavadoc(Sink sink, final String javadoc) {
@@ -484,8 +1310,7 @@ public class DocgeneratorMojo extends AbstractMavenReport {
       return;
     }
 
-    // TODO(drewc) split javadoc on lines and put in <p></p> bits for blank (or whitespace only)
-    // lines.
+    // Only descriptors from before the processor parsed javadoc get here, so leave it as it was
     sink.rawText(javadoc);
   }
 
@@ -537,24 +1362,11 @@ public class DocgeneratorMojo extends AbstractMavenReport {
     return siteRenderer;
   }
 
-  private Class<?> getClassForName(final String name)
-      throws ClassNotFoundException, MalformedURLException {
-    final URLClassLoader loader = getPluginClassLoader();
-    return loader.loadClass(name);
-  }
-
-  private URLClassLoader getPluginClassLoader() throws MalformedURLException {
-    if (pluginClassLoader != null) {
-      return pluginClassLoader;
-    }
-
-    final List<URL> jarUrls = Lists.newArrayList();
-    for (final String jarName : jarFiles) {
-      jarUrls.add(new URL("file://" + jarName));
+  private JarTypeIndex getJarTypeIndex() {
+    if (jarTypeIndex == null) {
+      jarTypeIndex = JarTypeIndex.build(jarFiles, log);
     }
-    final URLClassLoader loader = new URLClassLoader(jarUrls.toArray(new URL[jarUrls.size()]));
-    pluginClassLoader = loader;
-    return loader;
+    return jarTypeIndex;
   }
 
 }
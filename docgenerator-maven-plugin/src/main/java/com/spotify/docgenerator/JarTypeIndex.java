@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * An index of the classes in a set of jar files, built by reading the class files directly
+ * rather than loading them, so no static initializers run and nothing else gets pulled in.
+ * Types are looked up by canonical name, i.e. nested classes are {@code Outer.Inner}.
+ */
+class JarTypeIndex {
+  private static final int CLASS_FILE_MAGIC = 0xcafebabe;
+  private static final int ACC_INTERFACE = 0x0200;
+  private static final int ACC_ENUM = 0x4000;
+
+  private final Map<String, ClassEntry> byBinaryName = Maps.newHashMap();
+  private final Map<String, TypeInfo> byCanonicalName = Maps.newHashMap();
+
+  /**
+   * What the index knows about a type.
+   */
+  static class TypeInfo {
+    private final String name;
+    private final boolean isInterface;
+    private final List<String> enumConstants;
+
+    TypeInfo(final String name, final boolean isInterface, final List<String> enumConstants) {
+      this.name = name;
+      this.isInterface = isInterface;
+      this.enumConstants = enumConstants;
+    }
+
+    boolean isEnum() {
+      return enumConstants != null;
+    }
+
+    /**
+     * The enum constants in declaration order, or null if this isn't an enum.
+     */
+    List<String> getEnumConstants() {
+      return enumConstants;
+    }
+
+    @Override
+    public String toString() {
+      return (isInterface ? "interface " : "class ") + name;
+    }
+  }
+
+  /**
+   * The parts of a class file we care about, keyed by binary name (with slashes).
+   */
+  private static class ClassEntry {
+    private final int accessFlags;
+    private final List<String> enumConstants;
+    private String outerClass;
+    private String simpleName;
+
+    ClassEntry(final int accessFlags, final List<String> enumConstants) {
+      this.accessFlags = accessFlags;
+      this.enumConstants = enumConstants;
+    }
+  }
+
+  private JarTypeIndex() {
+  }
+
+  /**
+   * Index the jars.  As with a class loader, the first jar defining a class wins.  Jars and class
+   * files that can't be read are logged and skipped.
+   */
+  static JarTypeIndex build(final List<String> jarFiles, final Log log) {
+    final JarTypeIndex index = new JarTypeIndex();
+    if (jarFiles != null) {
+      for (final String jarFile : jarFiles) {
+        try {
+          index.addJar(jarFile, log);
+        } catch (IOException e) {
+          log.warn("failed indexing jar file " + jarFile, e);
+        }
+      }
+    }
+    for (final String binaryName : index.byBinaryName.keySet()) {
+      index.canonicalName(binaryName);
+    }
+    return index;
+  }
+
+  /**
+   * The type with the given canonical name, or null if none of the jars have it.
+   */
+  TypeInfo get(final String canonicalName) {
+    return byCanonicalName.get(canonicalName);
+  }
+
+  private void addJar(final String jarFile, final Log log) throws IOException {
+    try (ZipFile zip = new ZipFile(jarFile)) {
+      final Enumeration<? extends ZipEntry> entries = zip.entries();
+      while (entries.hasMoreElements()) {
+        final ZipEntry entry = entries.nextElement();
+        final String entryName = entry.getName();
+        if (entry.isDirectory() || !entryName.endsWith(".class")
+            || entryName.startsWith("META-INF/")) {
+          continue;
+        }
+        try (InputStream in = new BufferedInputStream(zip.getInputStream(entry))) {
+          readClass(new DataInputStream(in));
+        } catch (IOException e) {
+          // One bad class shouldn't take the rest of the jar with it
+          log.debug("skipping unreadable class " + entryName + " in " + jarFile, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Pick the access flags, enum constants and nesting out of a class file, skipping the rest.
+   */
+  private void readClass(final DataInputStream in) throws IOException {
+    if (in.readInt() != CLASS_FILE_MAGIC) {
+      return;
+    }
+    in.readUnsignedShort(); // minor version
+    in.readUnsignedShort(); // major version
+
+    final int constantPoolCount = in.readUnsignedShort();
+    final String[] utf8 = new String[constantPoolCount];
+    final int[] classNameIndex = new int[constantPoolCount];
+    for (int i = 1; i < constantPoolCount; i++) {
+      final int tag = in.readUnsignedByte();
+      switch (tag) {
+        case 1: // Utf8
+          utf8[i] = in.readUTF();
+          break;
+        case 7: // Class
+          classNameIndex[i] = in.readUnsignedShort();
+          break;
+        case 8: // String
+        case 16: // MethodType
+        case 19: // Module
+        case 20: // Package
+          skip(in, 2);
+          break;
+        case 15: // MethodHandle
+          skip(in, 3);
+          break;
+        case 3: // Integer
+        case 4: // Float
+        case 9: // Fieldref
+        case 10: // Methodref
+        case 11: // InterfaceMethodref
+        case 12: // NameAndType
+        case 17: // Dynamic
+        case 18: // InvokeDynamic
+          skip(in, 4);
+          break;
+        case 5: // Long
+        case 6: // Double
+          skip(in, 8);
+          i++; // takes up two slots
+          break;
+        default:
+          throw new IOException("unknown constant pool tag " + tag);
+      }
+    }
+
+    final int accessFlags = in.readUnsignedShort();
+    final String thisClass = utf8[classNameIndex[in.readUnsignedShort()]];
+    in.readUnsignedShort(); // super class
+    skip(in, 2 * in.readUnsignedShort()); // interfaces
+
+    final boolean isEnum = (accessFlags & ACC_ENUM) != 0;
+    final List<String> enumConstants = isEnum ? Lists.<String>newArrayList() : null;
+    final int fieldCount = in.readUnsignedShort();
+    for (int i = 0; i < fieldCount; i++) {
+      final int fieldFlags = in.readUnsignedShort();
+      final int nameIndex = in.readUnsignedShort();
+      in.readUnsignedShort(); // descriptor
+      skipAttributes(in);
+      if (isEnum && (fieldFlags & ACC_ENUM) != 0) {
+        enumConstants.add(utf8[nameIndex]);
+      }
+    }
+
+    final int methodCount = in.readUnsignedShort();
+    for (int i = 0; i < methodCount; i++) {
+      skip(in, 6); // flags, name, descriptor
+      skipAttributes(in);
+    }
+
+    final ClassEntry entry = new ClassEntry(accessFlags,
+        isEnum ? ImmutableList.copyOf(enumConstants) : null);
+    final int attributeCount = in.readUnsignedShort();
+    for (int i = 0; i < attributeCount; i++) {
+      final String attributeName = utf8[in.readUnsignedShort()];
+      final int length = in.readInt();
+      if (!"InnerClasses".equals(attributeName)) {
+        skip(in, length);
+        continue;
+      }
+      final int classCount = in.readUnsignedShort();
+      for (int j = 0; j < classCount; j++) {
+        final int innerIndex = in.readUnsignedShort();
+        final int outerIndex = in.readUnsignedShort();
+        final int innerNameIndex = in.readUnsignedShort();
+        in.readUnsignedShort(); // flags
+        if (outerIndex != 0 && innerNameIndex != 0
+            && thisClass.equals(utf8[classNameIndex[innerIndex]])) {
+          entry.outerClass = utf8[classNameIndex[outerIndex]];
+          entry.simpleName = utf8[innerNameIndex];
+        }
+      }
+    }
+
+    if (!byBinaryName.containsKey(thisClass)) {
+      byBinaryName.put(thisClass, entry);
+    }
+  }
+
+  /**
+   * Work out the canonical name of the class, registering it in {@code byCanonicalName}.
+   */
+  private String canonicalName(final String binaryName) {
+    final ClassEntry entry = byBinaryName.get(binaryName);
+    if (entry == null) {
+      // An outer class that isn't in any of the jars; the best we can do.
+      return binaryName.replace('/', '.').replace('$', '.');
+    }
+    final String name;
+    if (entry.outerClass != null && !entry.outerClass.equals(binaryName)) {
+      name = canonicalName(entry.outerClass) + "." + entry.simpleName;
+    } else {
+      name = binaryName.replace('/', '.');
+    }
+    if (!byCanonicalName.containsKey(name)) {
+      byCanonicalName.put(name, new TypeInfo(name, (entry.accessFlags & ACC_INTERFACE) != 0,
+          entry.enumConstants));
+    }
+    return name;
+  }
+
+  private static void skipAttributes(final DataInputStream in) throws IOException {
+    final int attributeCount = in.readUnsignedShort();
+    for (int i = 0; i < attributeCount; i++) {
+      in.readUnsignedShort(); // name
+      skip(in, in.readInt());
+    }
+  }
+
+  private static void skip(final DataInputStream in, final int bytes) throws IOException {
+    int remaining = bytes;
+    while (remaining > 0) {
+      final int skipped = in.skipBytes(remaining);
+      if (skipped <= 0) {
+        throw new IOException("truncated class file");
+      }
+      remaining -= skipped;
+    }
+  }
+}
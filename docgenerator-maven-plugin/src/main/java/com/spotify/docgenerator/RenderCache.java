@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.fasterxml.jackson.databind.MapperFeature.SORT_PROPERTIES_ALPHABETICALLY;
+import static com.fasterxml.jackson.databind.SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS;
+
+/**
+ * Rendered report sections kept between runs, by a hash of everything that goes into them, so
+ * that only the sections that changed need rendering again.  The whole cache is one file, read
+ * before rendering and written back after, keeping the most recently used sections up to a
+ * size limit.  Lookups and additions may come from any thread.
+ */
+class RenderCache {
+  /**
+   * Bump whenever the HTML for a section changes, so sections rendered by an older version of
+   * the renderer are not used.
+   */
+  static final String RENDERER_VERSION = "2";
+
+  private static final int MAGIC = 0x444f4352;
+  private static final int FORMAT_VERSION = 1;
+
+  /**
+   * Writes content for hashing with properties and map entries sorted, so that keys don't depend
+   * on the order reflection happens to list properties in.
+   */
+  private static final ObjectWriter WRITER = new ObjectMapper()
+      .configure(SORT_PROPERTIES_ALPHABETICALLY, true)
+      .configure(ORDER_MAP_ENTRIES_BY_KEYS, true)
+      .writer();
+
+  private final File file;
+  private final long maxBytes;
+  private final Log log;
+  private final ConcurrentMap<String, Entry> entries = Maps.newConcurrentMap();
+  private final long now = System.currentTimeMillis();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  private RenderCache(final File file, final long maxBytes, final Log log) {
+    this.file = file;
+    this.maxBytes = maxBytes;
+    this.log = log;
+  }
+
+  /**
+   * Open the cache in {@code file}.  If it can't be read, or was written in another format,
+   * start out empty.
+   */
+  static RenderCache open(final File file, final long maxBytes, final Log log) {
+    final RenderCache cache = new RenderCache(file, maxBytes, log);
+    if (!file.isFile()) {
+      return cache;
+    }
+    final long fileSize = file.length();
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        log.debug("ignoring render cache in another format: " + file);
+        return cache;
+      }
+      final int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        final String key = in.readUTF();
+        final long lastUsed = in.readLong();
+        final int length = in.readInt();
+        if (length < 0 || length > fileSize) {
+          throw new IOException("corrupt render cache entry of " + length + " bytes");
+        }
+        final byte[] html = new byte[length];
+        in.readFully(html);
+        cache.entries.put(key, new Entry(new String(html, Charsets.UTF_8), lastUsed));
+      }
+    } catch (EOFException e) {
+      log.debug("ignoring truncated render cache: " + file);
+      cache.entries.clear();
+    } catch (IOException e) {
+      log.warn("could not read render cache " + file, e);
+      cache.entries.clear();
+    }
+    return cache;
+  }
+
+  /**
+   * The key for a section rendered from {@code content}, which is hashed as JSON, and
+   * {@code links}, the pages of the types it links to.
+   */
+  static String key(final String kind, final Object content, final Map<String, String> links) {
+    try {
+      return new ReportFingerprint()
+          .putString("renderer", RENDERER_VERSION)
+          .putString(kind, WRITER.writeValueAsString(content))
+          .putString("links", links.toString())
+          .hash();
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("could not hash " + kind + " " + content, e);
+    }
+  }
+
+  /**
+   * The HTML for the key, or null if it isn't cached.
+   */
+  String get(final String key) {
+    final Entry entry = entries.get(key);
+    if (entry == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    entry.lastUsed = now;
+    return entry.html;
+  }
+
+  void put(final String key, final String html) {
+    entries.put(key, new Entry(html, now));
+  }
+
+  long getHits() {
+    return hits.get();
+  }
+
+  long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Write the cache back, the most recently used sections first, leaving out the least recently
+   * used ones past the size limit.
+   */
+  void save() {
+    final List<Map.Entry<String, Entry>> byLastUsed = Lists.newArrayList(entries.entrySet());
+    Collections.sort(byLastUsed, new Comparator<Map.Entry<String, Entry>>() {
+      @Override
+      public int compare(Map.Entry<String, Entry> o1, Map.Entry<String, Entry> o2) {
+        return Long.compare(o2.getValue().lastUsed, o1.getValue().lastUsed);
+      }
+    });
+
+    final File tmp = new File(file.getPath() + ".tmp");
+    try {
+      Files.createParentDirs(file);
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(new FileOutputStream(tmp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        final List<byte[]> kept = Lists.newArrayList();
+        long bytes = 0;
+        for (final Map.Entry<String, Entry> entry : byLastUsed) {
+          final byte[] html = entry.getValue().html.getBytes(Charsets.UTF_8);
+          bytes += html.length;
+          if (bytes > maxBytes) {
+            break;
+          }
+          kept.add(html);
+        }
+        out.writeInt(kept.size());
+        for (int i = 0; i < kept.size(); i++) {
+          out.writeUTF(byLastUsed.get(i).getKey());
+          out.writeLong(byLastUsed.get(i).getValue().lastUsed);
+          out.writeInt(kept.get(i).length);
+          out.write(kept.get(i));
+        }
+      }
+      Files.move(tmp, file);
+    } catch (IOException e) {
+      log.warn("could not save render cache " + file, e);
+    }
+  }
+
+  private static class Entry {
+    private final String html;
+    private volatile long lastUsed;
+
+    Entry(final String html, final long lastUsed) {
+      this.html = html;
+      this.lastUsed = lastUsed;
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A hash of everything the report is generated from: the contents of the descriptor files (or,
+ * for shards, their hashes in the manifest), the paths and sizes of the jar files, and the
+ * plugin version.  If it hasn't changed, neither has the report.
+ */
+class ReportFingerprint {
+  private final Hasher hasher = Hashing.sha256().newHasher();
+
+  ReportFingerprint() {
+    final String version = ReportFingerprint.class.getPackage().getImplementationVersion();
+    putString("version", (version == null) ? "unknown" : version);
+  }
+
+  ReportFingerprint putDescriptorFiles(final String kind, final List<String> paths)
+      throws IOException {
+    if (paths == null) {
+      return this;
+    }
+    for (final String path : paths) {
+      putString(kind, path);
+      hasher.putBytes(Files.hash(new File(path), Hashing.sha256()).asBytes());
+    }
+    return this;
+  }
+
+  /**
+   * The shards of descriptor manifests go by the hashes in the manifest, so they don't need
+   * reading.
+   */
+  ReportFingerprint putManifests(final Map<String, DescriptorManifest> manifests) {
+    for (final Map.Entry<String, DescriptorManifest> manifest : manifests.entrySet()) {
+      putString("manifest", manifest.getKey());
+      for (final DescriptorManifest.Shard shard : manifest.getValue().getShards()) {
+        putString(shard.getResource(), shard.getSha256());
+      }
+    }
+    return this;
+  }
+
+  ReportFingerprint putJarFiles(final List<String> paths) {
+    if (paths == null) {
+      return this;
+    }
+    for (final String path : paths) {
+      putString("jar", path);
+      hasher.putLong(new File(path).length());
+    }
+    return this;
+  }
+
+  /**
+   * Anything else that changes the output, e.g. a configuration setting.
+   */
+  ReportFingerprint putString(final String key, final String value) {
+    hasher.putString(key, Charsets.UTF_8).putByte((byte) 0);
+    hasher.putString(String.valueOf(value), Charsets.UTF_8).putByte((byte) 0);
+    return this;
+  }
+
+  String hash() {
+    return hasher.hash().toString();
+  }
+}
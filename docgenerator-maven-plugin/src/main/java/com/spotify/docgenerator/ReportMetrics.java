@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where the time went while generating the report, and how much there was to it.  Phases may be
+ * timed in bits, the time adding up.
+ */
+class ReportMetrics {
+  private static final ObjectWriter WRITER = new ObjectMapper()
+      .configure(SerializationFeature.INDENT_OUTPUT, true)
+      .writer();
+
+  private final Map<String, Long> phaseNanos = Maps.newLinkedHashMap();
+  private final Map<String, Long> counts = Maps.newLinkedHashMap();
+  private boolean reused;
+
+  /**
+   * Add the time since {@code start} to the phase, and return now.
+   */
+  long phase(final String name, final long start) {
+    final long now = System.nanoTime();
+    add(name, now - start);
+    return now;
+  }
+
+  private void add(final String phase, final long nanos) {
+    final Long sofar = phaseNanos.get(phase);
+    phaseNanos.put(phase, (sofar == null) ? nanos : sofar + nanos);
+  }
+
+  void count(final String name, final long value) {
+    counts.put(name, value);
+  }
+
+  void setReused(final boolean reused) {
+    this.reused = reused;
+  }
+
+  /**
+   * A one line summary, for the log.
+   */
+  String summary() {
+    final List<String> phases = Lists.newArrayList();
+    long total = 0;
+    for (final Map.Entry<String, Long> entry : phaseNanos.entrySet()) {
+      total += entry.getValue();
+      phases.add(entry.getKey() + " " + TimeUnit.NANOSECONDS.toMillis(entry.getValue()) + " ms");
+    }
+    return "Report " + (reused ? "reused" : "generated") + " in "
+           + TimeUnit.NANOSECONDS.toMillis(total) + " ms (" + Joiner.on(", ").join(phases) + "); "
+           + Joiner.on(", ").withKeyValueSeparator(" ").join(counts);
+  }
+
+  void writeTo(final File file) throws IOException {
+    Files.createParentDirs(file);
+    WRITER.writeValue(file, ImmutableMap.of(
+        "reused", reused,
+        "phaseNanos", phaseNanos,
+        "counts", counts));
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One page of a paginated report: endpoints sharing a path prefix, or types sharing a package,
+ * at most a page size of them.
+ */
+class ReportPage<T> {
+  private final String outputName;
+  private final String title;
+  private final List<T> items;
+
+  ReportPage(final String outputName, final String title, final List<T> items) {
+    this.outputName = outputName;
+    this.title = title;
+    this.items = items;
+  }
+
+  /**
+   * The name of the page, without the .html.
+   */
+  String getOutputName() {
+    return outputName;
+  }
+
+  String getTitle() {
+    return title;
+  }
+
+  List<T> getItems() {
+    return items;
+  }
+
+  /**
+   * Put the items on pages by group, in the order the groups first turn up, keeping the order of
+   * the items within a group.  A group with more than {@code pageSize} items is split over several
+   * pages.  {@code groups} has the group of every item.  Page names are made from
+   * {@code outputPrefix} and the group, and are added to {@code usedNames}, which they are kept
+   * distinct from.
+   */
+  static <T> List<ReportPage<T>> paginate(final String outputPrefix, final List<T> items,
+                                          final List<String> groups, final int pageSize,
+                                          final Set<String> usedNames) {
+    final Map<String, List<T>> grouped = Maps.newLinkedHashMap();
+    for (int i = 0; i < items.size(); i++) {
+      List<T> group = grouped.get(groups.get(i));
+      if (group == null) {
+        group = Lists.newArrayList();
+        grouped.put(groups.get(i), group);
+      }
+      group.add(items.get(i));
+    }
+
+    final List<ReportPage<T>> pages = Lists.newArrayList();
+    for (final Map.Entry<String, List<T>> entry : grouped.entrySet()) {
+      final List<List<T>> chunks = Lists.partition(entry.getValue(), Math.max(1, pageSize));
+      for (int i = 0; i < chunks.size(); i++) {
+        String name = outputPrefix + "-" + fileNamePart(entry.getKey());
+        String title = entry.getKey();
+        if (chunks.size() > 1) {
+          name += "-" + (i + 1);
+          title += " (" + (i + 1) + " of " + chunks.size() + ")";
+        }
+        final String baseName = name;
+        for (int n = 2; !usedNames.add(name); n++) {
+          name = baseName + "-" + n;
+        }
+        pages.add(new ReportPage<T>(name, title, chunks.get(i)));
+      }
+    }
+    return pages;
+  }
+
+  /**
+   * The first segment of the path, e.g. {@code /jobs} for {@code /jobs/{id}/status}.
+   */
+  static String pathPrefix(final String path) {
+    final int start = path.startsWith("/") ? 1 : 0;
+    final int end = path.indexOf('/', start);
+    return "/" + ((end < 0) ? path.substring(start) : path.substring(start, end));
+  }
+
+  /**
+   * The package of a type, going by the convention that packages are lower case, so nested
+   * classes end up with the package of their outermost class.
+   */
+  static String packageName(final String typeName) {
+    final List<String> segments = Splitter.on('.').splitToList(typeName);
+    int packageSegments = 0;
+    while (packageSegments < segments.size() - 1
+           && !segments.get(packageSegments).isEmpty()
+           && !Character.isUpperCase(segments.get(packageSegments).charAt(0))) {
+      packageSegments++;
+    }
+    return (packageSegments == 0)
+           ? "(default package)"
+           : Joiner.on('.').join(segments.subList(0, packageSegments));
+  }
+
+  private static String fileNamePart(final String group) {
+    final String part = CharMatcher.is('-').trimFrom(
+        group.replaceAll("[^A-Za-z0-9.]+", "-"));
+    return part.isEmpty() ? "root" : part;
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.spotify.docgenerator;
+
+import com.google.common.collect.AbstractIterator;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+/**
+ * The endpoints of a mapped JSON RESTEndpoints file, read one at a time every time they are
+ * iterated over, rather than kept.  Iterators may be used on any thread, one thread each.
+ */
+class ResourceMethodStream implements Iterable<ResourceMethod> {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final ObjectReader RESOURCE_METHOD_READER = MAPPER.reader(ResourceMethod.class);
+
+  private final String path;
+  private final ByteBuffer file;
+
+  ResourceMethodStream(final String path, final ByteBuffer file) {
+    this.path = path;
+    this.file = file;
+  }
+
+  @Override
+  public Iterator<ResourceMethod> iterator() {
+    return new AbstractIterator<ResourceMethod>() {
+      private JsonParser parser;
+
+      @Override
+      protected ResourceMethod computeNext() {
+        try {
+          if (parser == null) {
+            parser = MAPPER.getFactory().createParser(new ByteBufferInputStream(file.duplicate()));
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+              throw new IOException("expected an array of endpoints");
+            }
+          }
+          if (parser.nextToken() == JsonToken.END_ARRAY) {
+            parser.close();
+            return endOfData();
+          }
+          return RESOURCE_METHOD_READER.readValue(parser);
+        } catch (IOException e) {
+          throw new IllegalStateException("could not read endpoints from " + path, e);
+        }
+      }
+    };
+  }
+}
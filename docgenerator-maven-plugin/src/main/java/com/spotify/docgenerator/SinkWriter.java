@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.spotify.docgenerator;
+
+import org.apache.maven.doxia.sink.Sink;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes HTML into a sink as raw text, and into a copy as well if there is one, so a page body
+ * can be rendered once and kept for the next run without holding all of it in memory.  Failing
+ * to write the copy doesn't stop the page from being written; it is thrown by
+ * {@link #checkCopy()}.  Closing it closes the copy, but not the sink.
+ */
+class SinkWriter extends Writer {
+  private final Sink sink;
+  private final Writer copy;
+  private IOException copyFailure;
+  private long bytes;
+
+  SinkWriter(final Sink sink, final Writer copy) {
+    this.sink = sink;
+    this.copy = copy;
+  }
+
+  @Override
+  public void write(final char[] chars, final int offset, final int length) {
+    sink.rawText(new String(chars, offset, length));
+    for (int i = offset; i < offset + length; i++) {
+      // Surrogates come in pairs of two bytes each, even when a pair is split between writes
+      final char c = chars[i];
+      bytes += (c < 0x80) ? 1 : (c < 0x800 || Character.isSurrogate(c)) ? 2 : 3;
+    }
+    if (copy != null && copyFailure == null) {
+      try {
+        copy.write(chars, offset, length);
+      } catch (IOException e) {
+        copyFailure = e;
+      }
+    }
+  }
+
+  @Override
+  public void flush() {
+    if (copy != null && copyFailure == null) {
+      try {
+        copy.flush();
+      } catch (IOException e) {
+        copyFailure = e;
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    if (copy != null) {
+      try {
+        copy.close();
+      } catch (IOException e) {
+        if (copyFailure == null) {
+          copyFailure = e;
+        }
+      }
+    }
+  }
+
+  /**
+   * The number of bytes written, encoded as UTF-8.
+   */
+  long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Throw the exception writing the copy failed with, if it did.
+   */
+  void checkCopy() throws IOException {
+    if (copyFailure != null) {
+      throw copyFailure;
+    }
+  }
+}
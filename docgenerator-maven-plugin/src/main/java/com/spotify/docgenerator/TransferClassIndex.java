@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Maps;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Where every transfer class is in the mapped JSONClasses files, so that classes can be read one
+ * at a time when they are looked up, rather than all of them up front.  Finding them takes one
+ * streaming pass over each file.  Binary descriptors are read whole, as their classes share one
+ * table of strings anyway.
+ */
+class TransferClassIndex {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final ObjectReader TRANSFER_CLASS_READER = MAPPER.reader(TransferClass.class);
+
+  private final Map<String, Location> locations = Maps.newHashMap();
+
+  /**
+   * The class each thread read last.  Rendering a section looks its class up more than once.
+   */
+  private final ThreadLocal<Location> lastLocation = new ThreadLocal<Location>();
+  private final ThreadLocal<TransferClass> lastClass = new ThreadLocal<TransferClass>();
+
+  /**
+   * Where a class is in its mapped file, or the class itself if it came from a binary
+   * descriptor.
+   */
+  static class Location {
+    private final String path;
+    private final ByteBuffer file;
+    private final int offset;
+    private final int length;
+    private final TransferClass loaded;
+
+    private Location(final String path, final ByteBuffer file, final int offset, final int length,
+                     final TransferClass loaded) {
+      this.path = path;
+      this.file = file;
+      this.offset = offset;
+      this.length = length;
+      this.loaded = loaded;
+    }
+  }
+
+  /**
+   * Find the classes in a descriptor file, JSON or binary, mapped into {@code file}.  The
+   * locations of JSON classes keep the buffer.
+   */
+  static Map<String, Location> locate(final String path, final ByteBuffer file)
+      throws IOException {
+    final Map<String, Location> locations = Maps.newHashMap();
+    if (BinaryDescriptorReader.isBinary(file)) {
+      final Map<String, TransferClass> classes = BinaryDescriptorReader.readTransferClasses(
+          file.duplicate());
+      for (final Map.Entry<String, TransferClass> entry : classes.entrySet()) {
+        locations.put(entry.getKey(), new Location(path, null, 0, 0, entry.getValue()));
+      }
+      return locations;
+    }
+
+    try (JsonParser parser = MAPPER.getFactory().createParser(
+        new ByteBufferInputStream(file.duplicate()))) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("expected an object of classes in " + path);
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        final String name = parser.getCurrentName();
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+          // Only null makes sense here, and is what reading it would give
+          parser.skipChildren();
+          locations.put(name, null);
+          continue;
+        }
+        final int start = (int) parser.getTokenLocation().getByteOffset();
+        parser.skipChildren();
+        final int end = (int) parser.getTokenLocation().getByteOffset() + 1;
+        locations.put(name, new Location(path, file, start, end - start, null));
+      }
+    }
+    return locations;
+  }
+
+  /**
+   * Add the classes of a file, replacing those by the same name from earlier files.
+   */
+  void putAll(final Map<String, Location> fileLocations) {
+    locations.putAll(fileLocations);
+  }
+
+  /**
+   * The classes, read when they are looked up, and not kept.  Lookups may come from any thread.
+   */
+  Map<String, TransferClass> asMap() {
+    return Maps.transformValues(locations, new Function<Location, TransferClass>() {
+      @Override
+      public TransferClass apply(final Location location) {
+        return read(location);
+      }
+    });
+  }
+
+  private TransferClass read(final Location location) {
+    if (location == null) {
+      return null;
+    }
+    if (location.loaded != null) {
+      return location.loaded;
+    }
+    if (lastLocation.get() == location) {
+      return lastClass.get();
+    }
+    final ByteBuffer json = location.file.duplicate();
+    json.position(location.offset);
+    json.limit(location.offset + location.length);
+    try {
+      final TransferClass transferClass = TRANSFER_CLASS_READER.readValue(
+          new ByteBufferInputStream(json));
+      lastLocation.set(location);
+      lastClass.set(transferClass);
+      return transferClass;
+    } catch (IOException e) {
+      throw new IllegalStateException("could not read class at " + location.offset + " in "
+                                      + location.path, e);
+    }
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The types the report documents: those reachable from the endpoints and the transfer classes,
+ * following the arguments of generic types and the members of transfer classes.  Types are
+ * numbered as they turn up, and reachability is worked out in one traversal that visits every
+ * type once, so reference cycles between transfer classes are no problem.
+ */
+class TypeGraph {
+  private final Map<String, Integer> index = Maps.newHashMap();
+  private final List<String> names = Lists.newArrayList();
+  private final List<List<Integer>> references = Lists.newArrayList();
+
+  private final List<String> documentedTypes;
+  private final List<String> externalTypes = Lists.newArrayList();
+  private final Set<String> enumTypes = Sets.newHashSet();
+  private final Set<String> unresolvedTypes = Sets.newHashSet();
+  private final Map<String, JarTypeIndex.TypeInfo> resolvedTypes = Maps.newHashMap();
+
+  /**
+   * Build the graph, leaving {@code skipTypes} (like boolean) undocumented.  Types that are not
+   * among {@code allClasses} are external, and need {@link #resolved} before rendering.
+   */
+  TypeGraph(final Iterable<ResourceMethod> allMethods,
+            final Map<String, TransferClass> allClasses, final Set<String> skipTypes) {
+    final List<Integer> roots = Lists.newArrayList();
+    for (final ResourceMethod method : allMethods) {
+      addReferences(method.getReturnType(), roots);
+      if (method.getArguments() != null) {
+        for (final ResourceArgument arg : method.getArguments()) {
+          addReferences(arg.getType(), roots);
+        }
+      }
+    }
+    for (final Map.Entry<String, TransferClass> entry : allClasses.entrySet()) {
+      final int node = node(entry.getKey());
+      roots.add(node);
+      final TransferClass transferClass = entry.getValue();
+      if (transferClass == null) {
+        continue;
+      }
+      if (transferClass.getMembers() != null) {
+        for (final TransferMember member : transferClass.getMembers()) {
+          addReferences(member.getType(), references.get(node));
+        }
+      }
+      if (transferClass.getEnumConstants() != null) {
+        enumTypes.add(entry.getKey());
+      }
+    }
+
+    final BitSet reached = reach(roots);
+    final List<String> documented = Lists.newArrayListWithCapacity(reached.cardinality());
+    for (int node = reached.nextSetBit(0); node >= 0; node = reached.nextSetBit(node + 1)) {
+      final String name = names.get(node);
+      if (!skipTypes.contains(name)) {
+        documented.add(name);
+      }
+    }
+    Collections.sort(documented);
+    documentedTypes = Collections.unmodifiableList(documented);
+    for (final String name : documentedTypes) {
+      if (!allClasses.containsKey(name)) {
+        externalTypes.add(name);
+      }
+    }
+  }
+
+  private int node(final String name) {
+    final Integer existing = index.get(name);
+    if (existing != null) {
+      return existing;
+    }
+    final int node = names.size();
+    index.put(name, node);
+    names.add(name);
+    references.add(Lists.<Integer>newArrayList());
+    return node;
+  }
+
+  /**
+   * Add the type, and the arguments of it if it is generic, to {@code to}.
+   */
+  private void addReferences(final TypeDescriptor type, final List<Integer> to) {
+    if (type == null) {
+      return;
+    }
+    to.add(node(type.getName()));
+    for (final TypeDescriptor arg : type.getTypeArguments()) {
+      addReferences(arg, to);
+    }
+  }
+
+  private BitSet reach(final List<Integer> roots) {
+    final BitSet reached = new BitSet(names.size());
+    final Deque<Integer> pending = new ArrayDeque<Integer>(roots);
+    while (!pending.isEmpty()) {
+      final int node = pending.pop();
+      if (reached.get(node)) {
+        continue;
+      }
+      reached.set(node);
+      for (final int reference : references.get(node)) {
+        if (!reached.get(reference)) {
+          pending.push(reference);
+        }
+      }
+    }
+    return reached;
+  }
+
+  /**
+   * All types to document, sorted by name.
+   */
+  List<String> getDocumentedTypes() {
+    return documentedTypes;
+  }
+
+  /**
+   * The documented types that are not in the descriptors, to be looked up elsewhere.
+   */
+  List<String> getExternalTypes() {
+    return externalTypes;
+  }
+
+  /**
+   * Record what an external type turned out to be, null if it couldn't be found.
+   */
+  void resolved(final String name, final JarTypeIndex.TypeInfo type) {
+    resolvedTypes.put(name, type);
+    if (type == null) {
+      unresolvedTypes.add(name);
+    } else if (type.isEnum()) {
+      enumTypes.add(name);
+    }
+  }
+
+  /**
+   * What an external type was resolved to, or null if it couldn't be.
+   */
+  JarTypeIndex.TypeInfo getResolvedType(final String name) {
+    return resolvedTypes.get(name);
+  }
+
+  /**
+   * The enums among the documented types, both from the descriptors and resolved ones.
+   */
+  Set<String> getEnumTypes() {
+    return enumTypes;
+  }
+
+  Set<String> getUnresolvedTypes() {
+    return unresolvedTypes;
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementScanner7;
+import javax.lang.model.util.Elements;
+
+/**
+ * Walks the root elements of a round once, sorting everything it finds into the Jackson and
+ * JAX-RS buckets the processor cares about.  Annotations are matched by {@link TypeElement}
+ * identity, so nothing here does string comparisons on type names.
+ */
+class AnnotatedElementScanner extends ElementScanner7<Void, Void> {
+  private static final Map<String, String> REQUEST_METHOD_ANNOTATIONS =
+      ImmutableMap.<String, String>builder()
+          .put("javax.ws.rs.GET", "GET")
+          .put("javax.ws.rs.POST", "POST")
+          .put("javax.ws.rs.PUT", "PUT")
+          .put("javax.ws.rs.DELETE", "DELETE")
+          .put("com.spotify.helios.master.http.PATCH", "PATCH")
+          .build();
+
+  private final TypeElement jsonProperty;
+  private final TypeElement jsonSerialize;
+  private final Map<TypeElement, String> requestMethods = Maps.newHashMap();
+
+  private final List<TypeElement> types = Lists.newArrayList();
+  private final List<Element> jsonPropertyElements = Lists.newArrayList();
+  private final List<Element> jsonSerializeElements = Lists.newArrayList();
+  private final Map<ExecutableElement, String> restMethods = Maps.newLinkedHashMap();
+  private int elementsVisited;
+
+  AnnotatedElementScanner(final Elements elements) {
+    jsonProperty = elements.getTypeElement(JsonProperty.class.getCanonicalName());
+    jsonSerialize = elements.getTypeElement(JsonSerialize.class.getCanonicalName());
+    for (final Map.Entry<String, String> entry : REQUEST_METHOD_ANNOTATIONS.entrySet()) {
+      // The annotation may not be on the classpath at all (e.g. PATCH), which is fine.
+      final TypeElement annotation = elements.getTypeElement(entry.getKey());
+      if (annotation != null) {
+        requestMethods.put(annotation, entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * Every type (including nested ones) that was scanned, in the order they were seen.
+   */
+  List<TypeElement> getTypes() {
+    return types;
+  }
+
+  List<Element> getJsonPropertyElements() {
+    return jsonPropertyElements;
+  }
+
+  List<Element> getJsonSerializeElements() {
+    return jsonSerializeElements;
+  }
+
+  /**
+   * The request method annotated methods, mapped to their request method.
+   */
+  Map<ExecutableElement, String> getRestMethods() {
+    return restMethods;
+  }
+
+  /**
+   * How many elements were scanned, nested ones included.
+   */
+  int getElementsVisited() {
+    return elementsVisited;
+  }
+
+  void scanRootElements(final Iterable<? extends Element> rootElements) {
+    for (final Element e : rootElements) {
+      scan(e);
+    }
+  }
+
+  @Override
+  public Void scan(final Element e, final Void p) {
+    elementsVisited++;
+    return super.scan(e, p);
+  }
+
+  @Override
+  public Void visitPackage(final PackageElement e, final Void p) {
+    // A package-info root element; the types in the package are roots in their own right.
+    return null;
+  }
+
+  @Override
+  public Void visitType(final TypeElement e, final Void p) {
+    types.add(e);
+    sort(e);
+    return super.visitType(e, p);
+  }
+
+  @Override
+  public Void visitExecutable(final ExecutableElement e, final Void p) {
+    sort(e);
+    return super.visitExecutable(e, p);
+  }
+
+  @Override
+  public Void visitVariable(final VariableElement e, final Void p) {
+    sort(e);
+    return super.visitVariable(e, p);
+  }
+
+  @Override
+  public Void visitUnknown(final Element e, final Void p) {
+    // Element kinds newer than this scanner, e.g. record components.  Nothing for us there.
+    return null;
+  }
+
+  private void sort(final Element e) {
+    for (final AnnotationMirror am : e.getAnnotationMirrors()) {
+      final Element annotation = am.getAnnotationType().asElement();
+      if (annotation.equals(jsonProperty)) {
+        jsonPropertyElements.add(e);
+      } else if (annotation.equals(jsonSerialize)) {
+        jsonSerializeElements.add(e);
+      } else if (e.getKind() == ElementKind.METHOD && requestMethods.containsKey(annotation)) {
+        if (!restMethods.containsKey(e)) {
+          restMethods.put((ExecutableElement) e, requestMethods.get(annotation));
+        }
+      }
+    }
+  }
+}
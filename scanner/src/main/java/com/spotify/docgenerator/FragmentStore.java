@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Reads and writes the per-originating-type {@link TypeFragment}s that incremental mode keeps
+ * under {@link StandardLocation#CLASS_OUTPUT}, along with the index of which types have one.
+ */
+class FragmentStore {
+  private static final String FRAGMENT_DIR = "META-INF/docgenerator/fragments/";
+  private static final String INDEX_FILE = "META-INF/docgenerator/fragments.index";
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final ObjectReader FRAGMENT_READER = MAPPER.reader(TypeFragment.class);
+  private static final ObjectReader INDEX_READER = MAPPER.reader(
+      new TypeReference<List<String>>(){});
+
+  private final Filer filer;
+  private final ObjectWriter writer;
+
+  FragmentStore(final Filer filer, final ObjectWriter writer) {
+    this.filer = filer;
+    this.writer = writer;
+  }
+
+  /**
+   * The names of the types that had a fragment after the previous compilation, or an empty list
+   * if there was no previous compilation.
+   */
+  List<String> readIndex() {
+    final List<String> index = read(INDEX_FILE, INDEX_READER);
+    return (index == null) ? ImmutableList.<String>of() : index;
+  }
+
+  /**
+   * The fragment stored for the type, or null if there isn't one.
+   */
+  TypeFragment readFragment(final String typeName) {
+    return read(FRAGMENT_DIR + typeName, FRAGMENT_READER);
+  }
+
+  void writeFragment(final TypeFragment fragment, final Element originatingElement)
+      throws IOException {
+    write(FRAGMENT_DIR + fragment.getName(), fragment, originatingElement);
+  }
+
+  void writeIndex(final Collection<String> typeNames, final Element... originatingElements)
+      throws IOException {
+    final List<String> sorted = Lists.newArrayList(typeNames);
+    Collections.sort(sorted);
+    write(INDEX_FILE, sorted, originatingElements);
+  }
+
+  private <T> T read(final String resourceFile, final ObjectReader reader) {
+    try {
+      final FileObject file = filer.getResource(StandardLocation.CLASS_OUTPUT, "", resourceFile);
+      try (final InputStream in = file.openInputStream()) {
+        return reader.readValue(in);
+      }
+    } catch (IOException e) {
+      // Not there (or not readable), which just means we have to recompute it.
+      return null;
+    }
+  }
+
+  private void write(final String resourceFile, final Object obj,
+                     final Element... originatingElements) throws IOException {
+    final FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", resourceFile,
+        originatingElements);
+    try (final OutputStream out = file.openOutputStream()) {
+      writer.writeValue(out, obj);
+    }
+  }
+}
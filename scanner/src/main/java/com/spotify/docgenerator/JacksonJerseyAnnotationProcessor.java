@@ -22,39 +22,49 @@
 package com.spotify.docgenerator;
 
 import com.google.auto.service.AutoService;
+import com.google.common.base.Function;
 import com.google.common.base.Joiner;
-import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+import com.google.common.collect.TreeMultimap;
+import com.google.common.hash.Hashing;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.ObjectWriter;
-import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Filer;
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.Processor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
 import javax.annotation.processing.SupportedOptions;
 import javax.annotation.processing.SupportedSourceVersion;
 import javax.lang.model.SourceVersion;
-import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
-import javax.lang.model.type.DeclaredType;
-import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.tools.Diagnostic.Kind;
 import javax.tools.FileObject;
@@ -64,6 +74,7 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 
 import static com.fasterxml.jackson.databind.MapperFeature.SORT_PROPERTIES_ALPHABETICALLY;
+import static com.fasterxml.jackson.databind.SerializationFeature.FLUSH_AFTER_WRITE_VALUE;
 import static com.fasterxml.jackson.databind.SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS;
 import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS;
 
@@ -77,69 +88,121 @@ import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS
     "com.spotify.helios.master.http.PATCH"
     })
 @SupportedSourceVersion(SourceVersion.RELEASE_7)
-@SupportedOptions({ "debug", "verify" })
+@SupportedOptions({ "debug", "verify", "incremental", "format", "shards" })
 @AutoService(Processor.class)
 public class JacksonJerseyAnnotationProcessor extends AbstractProcessor {
-  private static final List<String> METHOD_ANNOTATIONS = Lists.newArrayList(
-      "javax.ws.rs.GET",
-      "javax.ws.rs.POST",
-      "javax.ws.rs.PUT",
-      "javax.ws.rs.DELETE",
-      "com.spotify.helios.master.http.PATCH");
-
-  private static final ObjectWriter NORMALIZING_OBJECT_WRITER = new ObjectMapper()
+  private static final ObjectMapper NORMALIZING_OBJECT_MAPPER = new ObjectMapper()
       .setSerializationInclusion(JsonInclude.Include.NON_EMPTY)
       .configure(SORT_PROPERTIES_ALPHABETICALLY, true)
       .configure(ORDER_MAP_ENTRIES_BY_KEYS, true)
-      .configure(WRITE_DATES_AS_TIMESTAMPS, false)
-      .writer();
+      .configure(WRITE_DATES_AS_TIMESTAMPS, false);
+  private static final ObjectWriter NORMALIZING_OBJECT_WRITER = NORMALIZING_OBJECT_MAPPER.writer();
+  /**
+   * For values written into a generator a record at a time, which must not flush the output
+   * after every record; closing the generator flushes it.
+   */
+  private static final ObjectWriter RECORD_WRITER = NORMALIZING_OBJECT_WRITER.without(
+      FLUSH_AFTER_WRITE_VALUE);
+  private static final ObjectReader MANIFEST_READER = NORMALIZING_OBJECT_MAPPER.reader(
+      DescriptorManifest.class);
+  private static final String SHARD_DIR = "META-INF/docgenerator/shards/";
+
+  private static final JfrEventType ROUND_EVENT = new JfrEventType(
+      "com.spotify.docgenerator.ProcessorRound", "Processor Round", "Processor", "rootElements");
+  private static final JfrEventType JAVADOC_EVENT = new JfrEventType(
+      "com.spotify.docgenerator.JavadocExtraction", "Javadoc Extraction", "Processor");
 
   private final Map<String, TransferClass> jsonClasses = Maps.newHashMap();
-  private final Map<String, ResourceClass> resourceClasses = Maps.newHashMap();
-  private final List<String> debugMessages = Lists.newArrayList();
+  /**
+   * Sorted by class name, so that endpoints with the same path and request method are written
+   * in the same order no matter the order the classes were compiled in.
+   */
+  private final Map<String, ResourceClass> resourceClasses = Maps.newTreeMap();
+
+  /**
+   * In incremental mode, every type this compilation saw, by name.  These are the types whose
+   * fragments get recomputed; everything else comes out of the {@link FragmentStore}.
+   */
+  private final Map<String, TypeElement> compiledTypes = Maps.newHashMap();
+  /**
+   * In incremental mode, the javadoc of enums we didn't compile, from their stored fragments.
+   */
+  private final Map<String, Javadoc> storedEnumDocs = Maps.newHashMap();
+  private boolean debug;
+  private boolean incremental;
+  private boolean binaryFormat;
+  private boolean shards;
+  private int shardsWritten;
+  private TypeDescriptorFactory typeDescriptors;
+  private JavadocParser javadocParser;
+  private ProcessorMetrics metrics;
+  private int round;
+
+  @Override
+  public synchronized void init(ProcessingEnvironment processingEnv) {
+    super.init(processingEnv);
+    debug = processingEnv.getOptions().containsKey("debug");
+    metrics = new ProcessorMetrics(debug);
+    incremental = processingEnv.getOptions().containsKey("incremental");
+    binaryFormat = "binary".equals(processingEnv.getOptions().get("format"));
+    shards = processingEnv.getOptions().containsKey("shards");
+    typeDescriptors = new TypeDescriptorFactory(processingEnv.getTypeUtils());
+    javadocParser = new JavadocParser(processingEnv.getElementUtils());
+  }
 
   @Override
   public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
-    if (roundEnv.processingOver()) {
-      generateOutput();
-    } else {
-      processAnnotations(annotations, roundEnv);
+    final long start = metrics.start();
+    try (final JfrEventType.Span span = ROUND_EVENT.begin(++round)) {
+      if (roundEnv.processingOver()) {
+        generateOutput();
+      } else {
+        span.setValue(roundEnv.getRootElements().size());
+        processAnnotations(roundEnv);
+      }
+    }
+    metrics.endRound(start);
+    if (roundEnv.processingOver() && metrics.isEnabled()) {
+      metrics.total("typeDescriptorsBuilt", typeDescriptors.getBuiltCount());
+      writeJsonToFile(processingEnv.getFiler(), "ProcessorMetrics", metrics.toJson());
     }
     return true;
   }
 
-  private void processAnnotations(Set<? extends TypeElement> annotations,
-                                  RoundEnvironment roundEnv) {
-    processJacksonAnnotations(roundEnv);
-    processRESTEndpointAnnotations(annotations, roundEnv);
-  }
-
-  private void processRESTEndpointAnnotations(final Set<? extends TypeElement> annotations,
-                                              final RoundEnvironment roundEnv) {
-    for (String methodAnnotation : METHOD_ANNOTATIONS) {
-      for (TypeElement foundAnnotations : annotations) {
-        if (foundAnnotations.toString().equals(methodAnnotation)) {
-          processFoundRestAnnotations(foundAnnotations, roundEnv);
-        }
+  /**
+   * Sort everything in the round into buckets in a single pass over the element tree, then
+   * process the buckets.
+   */
+  private void processAnnotations(final RoundEnvironment roundEnv) {
+    long t = metrics.start();
+    final AnnotatedElementScanner scanner =
+        new AnnotatedElementScanner(processingEnv.getElementUtils());
+    scanner.scanRootElements(roundEnv.getRootElements());
+    t = metrics.phase("scan", t);
+    metrics.count("rootElements", roundEnv.getRootElements().size());
+    metrics.count("elementsVisited", scanner.getElementsVisited());
+
+    if (incremental) {
+      for (final TypeElement type : scanner.getTypes()) {
+        compiledTypes.put(type.getQualifiedName().toString(), type);
       }
     }
+    processJsonPropertyAnnotations(scanner.getJsonPropertyElements());
+    processJsonSerializeAnnotations(scanner.getJsonSerializeElements());
+    t = metrics.phase("jackson", t);
+    processRESTEndpointAnnotations(scanner.getRestMethods());
+    metrics.phase("rest", t);
   }
 
   /**
    * Go through found REST Annotations and produce {@link ResourceClass}es from what we find.
    */
-  private void processFoundRestAnnotations(final TypeElement foundAnnotations,
-                                           final RoundEnvironment roundEnv) {
-    final Set<? extends Element> elements = roundEnv.getElementsAnnotatedWith(foundAnnotations);
-    for (final Element e : elements) {
-      // should always be METHOD, but just being paranoid
-      if (e.getKind() != ElementKind.METHOD) {
-        continue;
-      }
-      final ExecutableElement ee = (ExecutableElement) e;
+  private void processRESTEndpointAnnotations(final Map<ExecutableElement, String> methods) {
+    for (final Map.Entry<ExecutableElement, String> entry : methods.entrySet()) {
+      final ExecutableElement ee = entry.getKey();
       final List<ResourceArgument> arguments = computeMethodArguments(ee);
-      final ResourceMethod method = computeMethod(ee, arguments);
-      final ResourceClass klass = getParentResourceClass(e);
+      final ResourceMethod method = computeMethod(ee, entry.getValue(), arguments);
+      final ResourceClass klass = getParentResourceClass(ee);
       klass.getMembers().add(method);
     }
   }
@@ -163,44 +226,29 @@ public class JacksonJerseyAnnotationProcessor extends AbstractProcessor {
   }
 
   /**
-   * Given an {@link ExecutableElement} representing the method, and the already computed list
-   * of arguments to the method, produce a {@link ResourceMethod}.
+   * Given an {@link ExecutableElement} representing the method, the request method it was
+   * annotated with, and the already computed list of arguments to the method, produce a
+   * {@link ResourceMethod}.
    */
-  private ResourceMethod computeMethod(ExecutableElement ee, List<ResourceArgument> arguments) {
-    final String javaDoc = processingEnv.getElementUtils().getDocComment(ee);
+  private ResourceMethod computeMethod(ExecutableElement ee, String requestMethod,
+                                       List<ResourceArgument> arguments) {
+    final Map<String, String> paramNames = Maps.newHashMap();
+    for (int i = 0; i < arguments.size(); i++) {
+      paramNames.put(ee.getParameters().get(i).getSimpleName().toString(),
+                     arguments.get(i).getName());
+    }
+    final Javadoc doc = javadoc(ee, paramNames);
     final Path pathAnnotation = ee.getAnnotation(Path.class);
     final Produces producesAnnotation = ee.getAnnotation(Produces.class);
     return new ResourceMethod(
         ee.getSimpleName().toString(),
-        computeRequestMethod(ee),
+        requestMethod,
         (pathAnnotation == null) ? null : pathAnnotation.value(),
         (producesAnnotation == null) ? null : Joiner.on(",").join(producesAnnotation.value()),
         makeTypeDescriptor(ee.getReturnType()),
         arguments,
-        javaDoc);
-  }
-
-  /**
-   * Find the request method annotation the method was annotated with and return a string
-   * representing the request method.
-   */
-  private String computeRequestMethod(Element e) {
-    for (AnnotationMirror am : e.getAnnotationMirrors()) {
-      final String typeString = am.getAnnotationType().toString();
-      if (typeString.endsWith(".GET")) {
-        return "GET";
-      } else if (typeString.endsWith(".PUT")) {
-        return "PUT";
-      } else if (typeString.endsWith(".POST")) {
-        return "POST";
-      } else if (typeString.endsWith(".PATCH")) {
-        return "PATCH";
-      } else if (typeString.endsWith(".DELETE")) {
-        return "DELETE";
-      }
-    }
-
-    return null;
+        null,
+        doc);
   }
 
   /**
@@ -222,17 +270,11 @@ public class JacksonJerseyAnnotationProcessor extends AbstractProcessor {
     return newKlass;
   }
 
-  private void processJacksonAnnotations(final RoundEnvironment roundEnv) {
-    processJsonPropertyAnnotations(roundEnv);
-    processJsonSerializeAnnotations(roundEnv);
-  }
-
   /**
    * Go through a Jackson-annotated constructor, and produce {@link TransferClass}es representing
    * what we found.
    */
-  private void processJsonPropertyAnnotations(final RoundEnvironment roundEnv) {
-    final Set<? extends Element> elements = roundEnv.getElementsAnnotatedWith(JsonProperty.class);
+  private void processJsonPropertyAnnotations(final List<Element> elements) {
     for (final Element e : elements) {
       if (e.getEnclosingElement() == null) {
         continue;
@@ -245,10 +287,9 @@ public class JacksonJerseyAnnotationProcessor extends AbstractProcessor {
         continue;
       }
       final TypeElement parent = (TypeElement) parentElement;
-      final String parentJavaDoc = processingEnv.getElementUtils().getDocComment(parent);
       final String parentName = parent.getQualifiedName().toString();
 
-      final TransferClass klass = getOrCreateTransferClass(parentName, parentJavaDoc);
+      final TransferClass klass = getOrCreateTransferClass(parentName, parent);
 
       klass.add(e.toString(), makeTypeDescriptor(e.asType()));
     }
@@ -258,11 +299,10 @@ public class JacksonJerseyAnnotationProcessor extends AbstractProcessor {
    * If we see one of these, just create an entry that the class exists (with it's javadoc),
    * but don't try to do anything fancy.
    */
-  private void processJsonSerializeAnnotations(final RoundEnvironment roundEnv) {
-    final Set<? extends Element> elements = roundEnv.getElementsAnnotatedWith(JsonSerialize.class);
+  private void processJsonSerializeAnnotations(final List<Element> elements) {
     for (final Element e : elements) {
       if (e.getKind() != ElementKind.CLASS) {
-        debugMessages.add("kind for " + e + " is not CLASS, but " + e.getKind());
+        debug("kind for " + e + " is not CLASS, but " + e.getKind());
         continue;
       }
 
@@ -273,65 +313,425 @@ public class JacksonJerseyAnnotationProcessor extends AbstractProcessor {
         continue;
       }
 
-      getOrCreateTransferClass(className, processingEnv.getElementUtils().getDocComment(te));
+      getOrCreateTransferClass(className, te);
     }
   }
 
+  /**
+   * The transfer class, parsing its javadoc only the first time.
+   */
   private TransferClass getOrCreateTransferClass(final String parentName,
-                                                 final String parentJavaDoc) {
+                                                 final TypeElement parent) {
     final TransferClass klass = jsonClasses.get(parentName);
     if (klass != null) {
       return klass;
     }
     final TransferClass newKlass = new TransferClass(
-        Lists.<TransferMember>newArrayList(), parentJavaDoc);
+        Lists.<TransferMember>newArrayList(), null, null, javadoc(parent, null));
     jsonClasses.put(parentName, newKlass);
     return newKlass;
   }
 
   /**
-   * Make a {@link TypeDescriptor} by examining the {@link TypeMirror} and recursively looking
-   * at the generic arguments to the type (if they exist).
+   * Make a {@link TypeDescriptor} for the type, shared with every other use of the same type.
    */
   private TypeDescriptor makeTypeDescriptor(final TypeMirror type) {
-    if (type.getKind() != TypeKind.DECLARED) {
-      return new TypeDescriptor(type.toString(), ImmutableList.<TypeDescriptor>of());
-    }
-    final DeclaredType dt = (DeclaredType) type;
+    return typeDescriptors.make(type);
+  }
 
-    final String plainType = processingEnv.getTypeUtils().erasure(type).toString();
-    final List<TypeDescriptor> typeArgumentsList = Lists.newArrayList();
-    final List<? extends TypeMirror> typeArguments = dt.getTypeArguments();
-    for (final TypeMirror arg : typeArguments) {
-      typeArgumentsList.add(makeTypeDescriptor(arg));
+  /**
+   * Fetch and parse the javadoc of the element, renaming {@code @param}s by {@code paramNames}
+   * if given.  Null if it has none.
+   */
+  private Javadoc javadoc(final Element e, final Map<String, String> paramNames) {
+    try (final JfrEventType.Span span = JAVADOC_EVENT.begin(e)) {
+      return javadocParser.parse(processingEnv.getElementUtils().getDocComment(e), e,
+                                 paramNames);
     }
-    return new TypeDescriptor(plainType, typeArgumentsList);
   }
 
   private void fatalError(String msg) {
     processingEnv.getMessager().printMessage(Kind.ERROR, "FATAL ERROR: " + msg);
   }
 
+  private void debug(final String msg) {
+    if (debug) {
+      processingEnv.getMessager().printMessage(Kind.NOTE, msg);
+    }
+  }
+
   /**
    * Dump the contents of our discoveries.
    */
   private void generateOutput() {
     final Filer filer = processingEnv.getFiler();
-    writeJsonToFile(filer, "JSONClasses", jsonClasses);
-    writeJsonToFile(filer, "debugcrud", debugMessages);
+    long t = metrics.start();
+    if (incremental) {
+      final FragmentStore store = new FragmentStore(filer, NORMALIZING_OBJECT_WRITER);
+      final Set<String> fragmentTypes = loadFragments(store);
+      t = metrics.phase("loadFragments", t);
+      addReferencedEnums();
+      t = metrics.phase("referencedEnums", t);
+      saveFragments(store, fragmentTypes);
+      t = metrics.phase("saveFragments", t);
+    } else {
+      addReferencedEnums();
+      t = metrics.phase("referencedEnums", t);
+    }
+    metrics.count("transferClasses", jsonClasses.size());
+    metrics.count("resourceClasses", resourceClasses.size());
+    if (shards) {
+      writeShards(filer);
+      metrics.phase("writeShards", t);
+      return;
+    }
+    try (final OutputStream out = createOutput(filer, "JSONClasses")) {
+      final List<String> classNames = Lists.newArrayList(jsonClasses.keySet());
+      Collections.sort(classNames);
+      writeTransferClasses(out, classNames);
+    } catch (IOException e) {
+      fatalError("Failed writing to JSONClasses\n");
+      e.printStackTrace();
+    }
+    t = metrics.phase("writeJSONClasses", t);
+    try (final OutputStream out = createOutput(filer, "RESTEndpoints")) {
+      writeResourceMethods(out, resourceClasses.values());
+    } catch (IOException e) {
+      fatalError("Failed writing to RESTEndpoints\n");
+      e.printStackTrace();
+    }
+    metrics.phase("writeRESTEndpoints", t);
+  }
+
+  /**
+   * Write a {@code JSONClasses} and a {@code RESTEndpoints} shard per package, instead of one of
+   * each for everything, and a {@link DescriptorManifest} listing them with a hash of their
+   * contents.  Shards that come out the same as in the previous compilation are left alone.
+   */
+  private void writeShards(final Filer filer) {
+    final Map<String, String> previousHashes = readShardHashes(filer);
+    final SetMultimap<String, String> classesByPackage = TreeMultimap.create();
+    for (final String className : jsonClasses.keySet()) {
+      classesByPackage.put(packageOf(className), className);
+    }
+    final SetMultimap<String, String> resourcesByPackage = TreeMultimap.create();
+    for (final String className : resourceClasses.keySet()) {
+      resourcesByPackage.put(packageOf(className), className);
+    }
+
+    final List<DescriptorManifest.Shard> shards = Lists.newArrayList();
+    shardsWritten = 0;
+    try {
+      for (final String packageName : classesByPackage.keySet()) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTransferClasses(out, Lists.newArrayList(classesByPackage.get(packageName)));
+        shards.add(writeShard(filer, DescriptorManifest.KIND_TRANSFER_CLASSES, packageName,
+                              out.toByteArray(), previousHashes));
+      }
+      for (final String packageName : resourcesByPackage.keySet()) {
+        final List<ResourceClass> classes = Lists.newArrayList();
+        for (final String className : resourcesByPackage.get(packageName)) {
+          classes.add(resourceClasses.get(className));
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeResourceMethods(out, classes);
+        shards.add(writeShard(filer, DescriptorManifest.KIND_RESOURCE_METHODS, packageName,
+                              out.toByteArray(), previousHashes));
+      }
+    } catch (IOException e) {
+      fatalError("Failed writing descriptor shards\n");
+      e.printStackTrace();
+      return;
+    }
+    metrics.count("shardsWritten", shardsWritten);
+    metrics.count("shardsUnchanged", shards.size() - shardsWritten);
+    writeJsonToFile(filer, DescriptorManifest.RESOURCE, new DescriptorManifest(shards));
+  }
+
+  private DescriptorManifest.Shard writeShard(final Filer filer, final String kind,
+                                              final String packageName, final byte[] contents,
+                                              final Map<String, String> previousHashes)
+      throws IOException {
+    final String resourceFile = SHARD_DIR + packageName + "." + kind;
+    final String sha256 = Hashing.sha256().hashBytes(contents).toString();
+    if (!sha256.equals(previousHashes.get(resourceFile)) || !exists(filer, resourceFile)) {
+      try (final OutputStream out = createOutput(filer, resourceFile)) {
+        out.write(contents);
+      }
+      shardsWritten++;
+    }
+    return new DescriptorManifest.Shard(kind, packageName, resourceFile, sha256);
+  }
+
+  /**
+   * The shard hashes in the manifest of the previous compilation, by shard, or none if there
+   * wasn't one.
+   */
+  private Map<String, String> readShardHashes(final Filer filer) {
+    final Map<String, String> hashes = Maps.newHashMap();
+    try {
+      final FileObject file = filer.getResource(StandardLocation.CLASS_OUTPUT, "",
+          DescriptorManifest.RESOURCE);
+      try (final InputStream in = file.openInputStream()) {
+        for (final DescriptorManifest.Shard shard : MANIFEST_READER.<DescriptorManifest>readValue(
+            in).getShards()) {
+          hashes.put(shard.getResource(), shard.getSha256());
+        }
+      }
+    } catch (IOException e) {
+      // Not there (or not readable), which just means every shard gets written.
+    }
+    return hashes;
+  }
+
+  private static boolean exists(final Filer filer, final String resourceFile) {
+    try {
+      final FileObject file = filer.getResource(StandardLocation.CLASS_OUTPUT, "", resourceFile);
+      try (final InputStream in = file.openInputStream()) {
+        return true;
+      }
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * The package of a type, going by its element if there is one, or else assuming it isn't a
+   * nested class.
+   */
+  private String packageOf(final String typeName) {
+    TypeElement element = typeDescriptors.getDeclaredType(typeName);
+    if (element == null) {
+      element = processingEnv.getElementUtils().getTypeElement(typeName);
+    }
+    if (element != null) {
+      return processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+    }
+    final int dot = typeName.lastIndexOf('.');
+    return (dot < 0) ? "" : typeName.substring(0, dot);
+  }
+
+  /**
+   * Stream out the named classes of {@code jsonClasses} a class at a time, in the given order,
+   * which should be the key order the normalizing writer would have used for the whole map.
+   */
+  private void writeTransferClasses(final OutputStream out, final List<String> classNames)
+      throws IOException {
+    if (binaryFormat) {
+      final BinaryDescriptorWriter writer = BinaryDescriptorWriter.forTransferClasses();
+      for (final String className : classNames) {
+        writer.writeTransferClass(className, jsonClasses.get(className));
+      }
+      writer.writeTo(out);
+      return;
+    }
+    try (final JsonGenerator generator = NORMALIZING_OBJECT_MAPPER.getFactory().createGenerator(
+        out)) {
+      generator.writeStartObject();
+      for (final String className : classNames) {
+        generator.writeFieldName(className);
+        RECORD_WRITER.writeValue(generator, jsonClasses.get(className));
+      }
+      generator.writeEndObject();
+    }
+  }
+
+  /**
+   * Stream out the methods of {@code classes} with their display paths, in
+   * {@link EndpointOrdering}, merging the sorted methods of each class as they are written.
+   */
+  private void writeResourceMethods(final OutputStream out,
+                                    final Collection<ResourceClass> classes) throws IOException {
+    final List<Iterable<ResourceMethod>> sorted = Lists.newArrayListWithCapacity(classes.size());
+    for (final ResourceClass klass : classes) {
+      sorted.add(displayMethods(klass));
+    }
+    final Iterator<ResourceMethod> methods = new SortedMerge<ResourceMethod>(sorted,
+        EndpointOrdering.INSTANCE);
+    if (binaryFormat) {
+      final BinaryDescriptorWriter writer = BinaryDescriptorWriter.forResourceMethods();
+      while (methods.hasNext()) {
+        writer.writeResourceMethod(methods.next());
+      }
+      writer.writeTo(out);
+      return;
+    }
+    try (final JsonGenerator generator = NORMALIZING_OBJECT_MAPPER.getFactory().createGenerator(
+        out)) {
+      generator.writeStartArray();
+      while (methods.hasNext()) {
+        RECORD_WRITER.writeValue(generator, methods.next());
+      }
+      generator.writeEndArray();
+    }
+  }
 
-    final List<ResourceMethod> resources = Lists.newArrayList();
-    for (ResourceClass klass : resourceClasses.values()) {
-      final String path = klass.getPath();
+  /**
+   * The methods of {@code klass} in {@link EndpointOrdering} of their display paths, each made
+   * into its {@link #displayMethod} as it is iterated.
+   */
+  private Iterable<ResourceMethod> displayMethods(final ResourceClass klass) {
+    final List<ResourceMethod> sorted = new Ordering<ResourceMethod>() {
+      @Override
+      public int compare(final ResourceMethod o1, final ResourceMethod o2) {
+        final int cmp = computeDisplayPath(klass.getPath(), o1.getPath()).compareTo(
+            computeDisplayPath(klass.getPath(), o2.getPath()));
+        if (cmp != 0) {
+          return cmp;
+        }
+        return o1.getMethod().compareTo(o2.getMethod());
+      }
+    }.sortedCopy(klass.getMembers());
+    return Iterables.transform(sorted, new Function<ResourceMethod, ResourceMethod>() {
+      @Override
+      public ResourceMethod apply(final ResourceMethod method) {
+        return displayMethod(klass, method);
+      }
+    });
+  }
 
+  /**
+   * The method as it is written out: without a name, and with the full path to it.
+   */
+  private ResourceMethod displayMethod(final ResourceClass klass, final ResourceMethod method) {
+    return new ResourceMethod("", method.getMethod(),
+        computeDisplayPath(klass.getPath(), method.getPath()),
+        method.getReturnContentType(), method.getReturnType(), method.getArguments(),
+        method.getJavadoc(), method.getDoc());
+  }
+
+  /**
+   * Add the constants of every enum referenced by a transfer class or endpoint to
+   * {@code jsonClasses}, so the report can show them without loading any classes.
+   */
+  private void addReferencedEnums() {
+    final Set<TypeDescriptor> seen = Sets.newIdentityHashSet();
+    final Set<String> typeNames = Sets.newHashSet();
+    for (final TransferClass klass : jsonClasses.values()) {
+      if (klass.getMembers() != null) {
+        for (final TransferMember member : klass.getMembers()) {
+          collectTypeNames(member.getType(), seen, typeNames);
+        }
+      }
+    }
+    for (final ResourceClass klass : resourceClasses.values()) {
       for (final ResourceMethod method : klass.getMembers()) {
-        resources.add(new ResourceMethod("", method.getMethod(),
-            computeDisplayPath(path, method.getPath()),
-            method.getReturnContentType(), method.getReturnType(), method.getArguments(),
-            method.getJavadoc()));
+        collectTypeNames(method.getReturnType(), seen, typeNames);
+        if (method.getArguments() != null) {
+          for (final ResourceArgument argument : method.getArguments()) {
+            collectTypeNames(argument.getType(), seen, typeNames);
+          }
+        }
+      }
+    }
+
+    for (final String typeName : typeNames) {
+      TypeElement type = typeDescriptors.getDeclaredType(typeName);
+      if (type == null && incremental) {
+        // Only referenced from a stored fragment, so we never saw the type mirror.
+        type = processingEnv.getElementUtils().getTypeElement(typeName);
+      }
+      if (type == null || type.getKind() != ElementKind.ENUM) {
+        continue;
+      }
+
+      final List<String> constants = Lists.newArrayList();
+      for (final Element e : type.getEnclosedElements()) {
+        if (e.getKind() == ElementKind.ENUM_CONSTANT) {
+          constants.add(e.getSimpleName().toString());
+        }
+      }
+      final TransferClass existing = jsonClasses.get(typeName);
+      final Javadoc doc;
+      if (existing != null) {
+        doc = existing.getDoc();
+      } else if (compiledTypes.containsKey(typeName) || !incremental) {
+        doc = javadoc(type, null);
+      } else {
+        doc = storedEnumDocs.get(typeName);
+      }
+      jsonClasses.put(typeName, new TransferClass(
+          (existing == null) ? null : existing.getMembers(), null, constants, doc));
+    }
+  }
+
+  /**
+   * Collect the names of the type and its type arguments.  Descriptors are shared, so each
+   * instance only needs looking at once.
+   */
+  private void collectTypeNames(final TypeDescriptor type, final Set<TypeDescriptor> seen,
+                                final Set<String> typeNames) {
+    if (type == null || !seen.add(type)) {
+      return;
+    }
+    typeNames.add(type.getName());
+    for (final TypeDescriptor argument : type.getTypeArguments()) {
+      collectTypeNames(argument, seen, typeNames);
+    }
+  }
+
+  /**
+   * Pull in the stored fragments of the types we didn't compile, so the outputs come out the same
+   * as for a full compile.  Types that no longer exist are dropped.  Returns the names of the
+   * types whose fragments are still good.
+   */
+  private Set<String> loadFragments(final FragmentStore store) {
+    final Set<String> fragmentTypes = Sets.newHashSet();
+    for (final String typeName : store.readIndex()) {
+      if (compiledTypes.containsKey(typeName)
+          || processingEnv.getElementUtils().getTypeElement(typeName) == null) {
+        continue;
+      }
+      final TypeFragment fragment = store.readFragment(typeName);
+      if (fragment == null) {
+        debug("fragment for " + typeName + " went missing");
+        continue;
+      }
+      fragmentTypes.add(typeName);
+      final TransferClass transferClass = fragment.getTransferClass();
+      if (transferClass != null && transferClass.getMembers() == null
+          && transferClass.getEnumConstants() != null) {
+        // Only there because something referenced the enum; whether anything still does is up
+        // to addReferencedEnums, which just needs the javadoc the class file doesn't have.
+        storedEnumDocs.put(typeName, transferClass.getDoc());
+      } else if (transferClass != null && !jsonClasses.containsKey(typeName)) {
+        jsonClasses.put(typeName, transferClass);
+      }
+      if (fragment.getResourceClass() != null && !resourceClasses.containsKey(typeName)) {
+        resourceClasses.put(typeName, fragment.getResourceClass());
+      }
+    }
+    return fragmentTypes;
+  }
+
+  /**
+   * Save a fragment for every type we compiled, and the index of all good fragments.
+   */
+  private void saveFragments(final FragmentStore store, final Set<String> fragmentTypes) {
+    for (final Map.Entry<String, TypeElement> entry : compiledTypes.entrySet()) {
+      final String typeName = entry.getKey();
+      final TransferClass transferClass = jsonClasses.get(typeName);
+      final ResourceClass resourceClass = resourceClasses.get(typeName);
+      if (transferClass == null && resourceClass == null) {
+        continue;
       }
+      try {
+        store.writeFragment(new TypeFragment(typeName, transferClass, resourceClass),
+            entry.getValue());
+        fragmentTypes.add(typeName);
+      } catch (IOException e) {
+        fatalError("Failed writing fragment for " + typeName + "\n");
+        e.printStackTrace();
+      }
+    }
+
+    try {
+      store.writeIndex(fragmentTypes,
+          compiledTypes.values().toArray(new Element[compiledTypes.size()]));
+    } catch (IOException e) {
+      fatalError("Failed writing fragment index\n");
+      e.printStackTrace();
     }
-    writeJsonToFile(filer, "RESTEndpoints", resources);
   }
 
   private String computeDisplayPath(String path, String methodPath) {
@@ -358,15 +758,33 @@ public class JacksonJerseyAnnotationProcessor extends AbstractProcessor {
   }
 
   private void writeJsonToFile(Filer filer, String resourceFile, Object obj) {
-    try {
-      final FileObject outputFile = filer.createResource(StandardLocation.CLASS_OUTPUT, "",
-          resourceFile);
-      try (final OutputStream out = outputFile.openOutputStream()) {
-        out.write(NORMALIZING_OBJECT_WRITER.writeValueAsBytes(obj));
-      }
+    try (final JsonGenerator generator = createGenerator(filer, resourceFile)) {
+      RECORD_WRITER.writeValue(generator, obj);
     } catch (IOException e) {
       fatalError("Failed writing to " + resourceFile + "\n");
       e.printStackTrace();
     }
   }
+
+  /**
+   * A generator writing straight to the output stream of a new {@code CLASS_OUTPUT} resource.
+   * Closing the generator closes the stream.
+   */
+  private JsonGenerator createGenerator(final Filer filer, final String resourceFile)
+      throws IOException {
+    return NORMALIZING_OBJECT_MAPPER.getFactory().createGenerator(
+        createOutput(filer, resourceFile));
+  }
+
+  /**
+   * The buffered output stream of a new {@code CLASS_OUTPUT} resource, counting the bytes
+   * written.
+   */
+  private OutputStream createOutput(final Filer filer, final String resourceFile)
+      throws IOException {
+    final FileObject outputFile = filer.createResource(StandardLocation.CLASS_OUTPUT, "",
+        resourceFile);
+    return new BufferedOutputStream(metrics.countBytes(resourceFile,
+        outputFile.openOutputStream()));
+  }
 }
@@ -0,0 +1,431 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+
+/**
+ * Parses doc comments into {@link Javadoc}s.  The text becomes sanitized HTML: only a few
+ * harmless tags are kept, without attributes other than the {@code href} of links, every tag is
+ * closed again within its paragraph, and anything else is escaped.  Paragraphs are separated by
+ * blank lines or {@code <p>}, except inside {@code <pre>}.
+ *
+ * <p>References in {@code {@link}} and {@code @see} tags are resolved against the nested types
+ * around the commented element, its package and {@code java.lang}, or taken as qualified names.
+ * The model API doesn't show imports, so simple names of imported types aren't resolved.
+ */
+class JavadocParser {
+  private static final Set<String> ALLOWED_TAGS = ImmutableSet.of(
+      "a", "b", "i", "em", "strong", "code", "tt", "pre", "sub", "sup", "br", "ul", "ol", "li",
+      "dl", "dt", "dd", "blockquote", "table", "thead", "tbody", "tr", "th", "td");
+  private static final Set<String> VOID_TAGS = ImmutableSet.of("br");
+
+  private static final Pattern HTML_TAG = Pattern.compile(
+      "<(/?)([a-zA-Z][a-zA-Z0-9]*)([^<>]*?)(/?)>");
+  private static final Pattern HREF = Pattern.compile(
+      "\\bhref\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)')", Pattern.CASE_INSENSITIVE);
+  private static final Pattern SAFE_URL = Pattern.compile(
+      "(?i)(https?:|mailto:|[^:]*$).*");
+  private static final Pattern ENTITY = Pattern.compile(
+      "&(?:[a-zA-Z][a-zA-Z0-9]*|#[0-9]+|#[xX][0-9a-fA-F]+);");
+  private static final Pattern BLOCK_TAG = Pattern.compile("^\\s*@([a-zA-Z]+)\\s?");
+  private static final Pattern SENTENCE_END = Pattern.compile("\\.(\\s|$)");
+
+  private final Elements elements;
+
+  JavadocParser(final Elements elements) {
+    this.elements = elements;
+  }
+
+  /**
+   * Parse the doc comment of {@code element}, or return null if it has none.  {@code @param}
+   * tags are renamed by {@code paramNames} where it has their name.
+   */
+  Javadoc parse(final String comment, final Element element,
+                final Map<String, String> paramNames) {
+    if (comment == null || comment.trim().isEmpty()) {
+      return null;
+    }
+
+    final StringBuilder description = new StringBuilder();
+    final List<StringBuilder> blockTags = Lists.newArrayList();
+    StringBuilder current = description;
+    for (final String line : comment.split("\n", -1)) {
+      if (BLOCK_TAG.matcher(line).find()) {
+        current = new StringBuilder();
+        blockTags.add(current);
+      }
+      current.append(line).append('\n');
+    }
+
+    final Set<String> links = Sets.newLinkedHashSet();
+    final List<String> body = new Converter(element, links).paragraphs(description.toString());
+    final List<String> summaryParagraphs = new Converter(element, links).paragraphs(
+        firstSentence(description.toString()));
+    final String summary = summaryParagraphs.isEmpty() ? null : summaryParagraphs.get(0);
+
+    final List<Javadoc.Param> params = Lists.newArrayList();
+    String returns = null;
+    for (final StringBuilder blockTag : blockTags) {
+      final Matcher matcher = BLOCK_TAG.matcher(blockTag);
+      matcher.find();
+      final String tag = matcher.group(1);
+      final String text = blockTag.substring(matcher.end()).trim();
+      if ("param".equals(tag)) {
+        final int space = indexOfWhitespace(text);
+        final String name = (space < 0) ? text : text.substring(0, space);
+        final String renamed = (paramNames == null) ? null : paramNames.get(name);
+        params.add(new Javadoc.Param((renamed == null) ? name : renamed,
+            inline(element, links, (space < 0) ? "" : text.substring(space))));
+      } else if ("return".equals(tag)) {
+        returns = inline(element, links, text);
+      } else if ("see".equals(tag) && !text.startsWith("\"") && !text.startsWith("<")) {
+        final int space = indexOfWhitespace(text);
+        final String resolved = resolve((space < 0) ? text : text.substring(0, space), element);
+        if (resolved != null) {
+          links.add(resolved);
+        }
+      }
+    }
+
+    return new Javadoc(summary, body, params, returns, Lists.newArrayList(links));
+  }
+
+  /**
+   * The text of a block tag as one HTML fragment, its paragraphs joined by a space, or null if
+   * it is empty.
+   */
+  private String inline(final Element element, final Set<String> links, final String text) {
+    final List<String> paragraphs = new Converter(element, links).paragraphs(text);
+    return paragraphs.isEmpty() ? null : Joiner.on(' ').join(paragraphs);
+  }
+
+  /**
+   * The description up to the end of its first sentence, or of its first paragraph if that
+   * comes first.  Periods within inline tags don't count.
+   */
+  private static String firstSentence(final String description) {
+    int depth = 0;
+    for (int i = 0; i < description.length(); i++) {
+      final char c = description.charAt(i);
+      if (c == '{' && description.startsWith("{@", i)) {
+        depth++;
+      } else if (c == '{' && depth > 0) {
+        depth++;
+      } else if (c == '}' && depth > 0) {
+        depth--;
+      } else if (depth == 0 && c == '.'
+                 && SENTENCE_END.matcher(description).region(i, description.length())
+                     .lookingAt()) {
+        return description.substring(0, i + 1);
+      } else if (depth == 0 && (c == '\n' && isBlankLineAt(description, i + 1)
+                                || description.regionMatches(true, i, "<p>", 0, 3)
+                                || description.regionMatches(true, i, "<p ", 0, 3))) {
+        if (!description.substring(0, i).trim().isEmpty()) {
+          return description.substring(0, i);
+        }
+      }
+    }
+    return description;
+  }
+
+  private static int indexOfWhitespace(final String text) {
+    for (int i = 0; i < text.length(); i++) {
+      if (Character.isWhitespace(text.charAt(i))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isBlankLineAt(final String text, final int start) {
+    final int end = text.indexOf('\n', start);
+    return end >= 0 && text.substring(start, end).trim().isEmpty();
+  }
+
+  /**
+   * The qualified name of the type a {@code {@link}} or {@code @see} reference is to, or null
+   * if it can't be found.  A reference to a member is taken as one to its type.
+   */
+  private String resolve(final String reference, final Element element) {
+    final int hash = reference.indexOf('#');
+    final String typeName = (hash < 0) ? reference : reference.substring(0, hash);
+    if (typeName.isEmpty()) {
+      // A member of the commented type itself, which is no use linking to
+      return null;
+    }
+    final TypeElement enclosing = enclosingType(element);
+
+    final String first = typeName.split("\\.", 2)[0];
+    for (TypeElement type = enclosing; type != null;
+         type = enclosingType(type.getEnclosingElement())) {
+      if (type.getSimpleName().contentEquals(first)) {
+        return qualified(type, typeName);
+      }
+      for (final TypeElement member : ElementFilter.typesIn(type.getEnclosedElements())) {
+        if (member.getSimpleName().contentEquals(first)) {
+          return qualified(member, typeName);
+        }
+      }
+    }
+    if (enclosing != null) {
+      final PackageElement pkg = elements.getPackageOf(enclosing);
+      if (!pkg.isUnnamed()) {
+        final TypeElement inPackage = elements.getTypeElement(pkg.getQualifiedName() + "."
+                                                              + typeName);
+        if (inPackage != null) {
+          return inPackage.getQualifiedName().toString();
+        }
+      }
+    }
+    for (final String candidate : new String[] { typeName, "java.lang." + typeName }) {
+      final TypeElement type = elements.getTypeElement(candidate);
+      if (type != null) {
+        return type.getQualifiedName().toString();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * The type {@code typeName} names, given that its first segment is {@code type}.
+   */
+  private String qualified(final TypeElement type, final String typeName) {
+    final int dot = typeName.indexOf('.');
+    if (dot < 0) {
+      return type.getQualifiedName().toString();
+    }
+    final TypeElement nested = elements.getTypeElement(type.getQualifiedName()
+                                                       + typeName.substring(dot));
+    return (nested == null) ? null : nested.getQualifiedName().toString();
+  }
+
+  private static TypeElement enclosingType(final Element element) {
+    for (Element e = element; e != null; e = e.getEnclosingElement()) {
+      if (e.getKind().isClass() || e.getKind().isInterface()) {
+        return (TypeElement) e;
+      }
+      if (e.getKind() == ElementKind.PACKAGE) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Turns the text of one comment into sanitized HTML paragraphs.
+   */
+  private class Converter {
+    private final Element element;
+    private final Set<String> links;
+    private final List<String> paragraphs = Lists.newArrayList();
+    private final StringBuilder out = new StringBuilder();
+    private final Deque<String> open = new ArrayDeque<String>();
+
+    Converter(final Element element, final Set<String> links) {
+      this.element = element;
+      this.links = links;
+    }
+
+    List<String> paragraphs(final String text) {
+      int i = 0;
+      while (i < text.length()) {
+        final char c = text.charAt(i);
+        if (c == '\n' && !open.contains("pre") && isBlankLineAt(text, i + 1)) {
+          endParagraph();
+          i = text.indexOf('\n', i + 1);
+        } else if (c == '{' && text.startsWith("{@", i)) {
+          i = inlineTag(text, i);
+        } else if (c == '<') {
+          i = htmlTag(text, i);
+        } else if (c == '&') {
+          final Matcher entity = ENTITY.matcher(text).region(i, text.length());
+          if (entity.lookingAt()) {
+            out.append(entity.group());
+            i = entity.end();
+          } else {
+            out.append("&amp;");
+            i++;
+          }
+        } else {
+          escape(String.valueOf(c));
+          i++;
+        }
+      }
+      endParagraph();
+      return paragraphs;
+    }
+
+    /**
+     * Handle the inline tag starting at {@code start}, returning where it ends.  Unknown tags
+     * are left out, but their text kept.
+     */
+    private int inlineTag(final String text, final int start) {
+      int depth = 0;
+      int end = start;
+      for (; end < text.length(); end++) {
+        if (text.charAt(end) == '{') {
+          depth++;
+        } else if (text.charAt(end) == '}' && --depth == 0) {
+          break;
+        }
+      }
+      final String content = text.substring(start + 2, Math.min(end, text.length()));
+      final int space = indexOfWhitespace(content);
+      final String tag = (space < 0) ? content : content.substring(0, space);
+      final String argument = (space < 0) ? "" : content.substring(space + 1);
+      if ("code".equals(tag) || "literal".equals(tag)) {
+        if ("code".equals(tag)) {
+          out.append("<code>");
+        }
+        escape(argument);
+        if ("code".equals(tag)) {
+          out.append("</code>");
+        }
+      } else if ("link".equals(tag) || "linkplain".equals(tag)) {
+        link(argument.trim(), "link".equals(tag));
+      } else {
+        escape(argument);
+      }
+      return end + 1;
+    }
+
+    private void link(final String argument, final boolean code) {
+      final int space = indexOfWhitespace(argument);
+      final String reference = (space < 0) ? argument : argument.substring(0, space);
+      final String label = (space < 0) ? null : argument.substring(space + 1).trim();
+      final String resolved = resolve(reference, element);
+      if (resolved != null) {
+        links.add(resolved);
+      }
+      if (code) {
+        out.append("<code>");
+      }
+      if (label != null && !label.isEmpty()) {
+        escape(label);
+      } else {
+        escape(reference.startsWith("#") ? reference.substring(1) : reference.replace('#', '.'));
+      }
+      if (code) {
+        out.append("</code>");
+      }
+    }
+
+    /**
+     * Handle what may be an HTML tag at {@code start}, returning where it ends.
+     */
+    private int htmlTag(final String text, final int start) {
+      final Matcher matcher = HTML_TAG.matcher(text).region(start, text.length());
+      if (!matcher.lookingAt()) {
+        out.append("&lt;");
+        return start + 1;
+      }
+      final boolean closing = !matcher.group(1).isEmpty();
+      final String name = matcher.group(2).toLowerCase();
+      if ("p".equals(name) && !open.contains("pre")) {
+        endParagraph();
+      } else if (ALLOWED_TAGS.contains(name)) {
+        if (VOID_TAGS.contains(name)) {
+          out.append('<').append(name).append("/>");
+        } else if (!closing) {
+          open.push(name);
+          out.append('<').append(name);
+          if ("a".equals(name)) {
+            href(matcher.group(3));
+          }
+          out.append('>');
+        } else if (open.contains(name)) {
+          String closed;
+          do {
+            closed = open.pop();
+            out.append("</").append(closed).append('>');
+          } while (!closed.equals(name));
+        }
+      }
+      return matcher.end();
+    }
+
+    private void href(final String attributes) {
+      final Matcher matcher = HREF.matcher(attributes);
+      if (!matcher.find()) {
+        return;
+      }
+      final String url = (matcher.group(1) != null) ? matcher.group(1) : matcher.group(2);
+      if (SAFE_URL.matcher(url.trim()).matches()) {
+        out.append(" href=\"");
+        escape(url.trim());
+        out.append('"');
+      }
+    }
+
+    private void escape(final String text) {
+      for (int i = 0; i < text.length(); i++) {
+        final char c = text.charAt(i);
+        switch (c) {
+          case '<':
+            out.append("&lt;");
+            break;
+          case '>':
+            out.append("&gt;");
+            break;
+          case '&':
+            out.append("&amp;");
+            break;
+          case '"':
+            out.append("&quot;");
+            break;
+          default:
+            out.append(c);
+        }
+      }
+    }
+
+    private void endParagraph() {
+      while (!open.isEmpty()) {
+        out.append("</").append(open.pop()).append('>');
+      }
+      final String paragraph = out.toString().trim();
+      if (!paragraph.isEmpty()) {
+        paragraphs.add(paragraph);
+      }
+      out.setLength(0);
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.CountingOutputStream;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timings and counts of what the processor did, per round, for finding out what makes it slow.
+ * Only collected when enabled; otherwise every method returns straight away, and timestamps are
+ * never taken.
+ *
+ * Phases are timed by chaining, each call taking the time the phase started and returning the
+ * time it ended:
+ *
+ * <pre>
+ *   long t = metrics.start();
+ *   scan();
+ *   t = metrics.phase("scan", t);
+ *   process();
+ *   metrics.phase("process", t);
+ * </pre>
+ */
+class ProcessorMetrics {
+  private final boolean enabled;
+  private final List<Map<String, Object>> rounds = Lists.newArrayList();
+  private final Map<String, Long> totals = Maps.newLinkedHashMap();
+  private final Map<String, CountingOutputStream> outputs = Maps.newLinkedHashMap();
+  private Map<String, Long> phases = Maps.newLinkedHashMap();
+  private Map<String, Long> counts = Maps.newLinkedHashMap();
+
+  ProcessorMetrics(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  boolean isEnabled() {
+    return enabled;
+  }
+
+  long start() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Record the time since {@code start} for the phase of the current round, and return now.
+   */
+  long phase(final String name, final long start) {
+    if (!enabled) {
+      return 0;
+    }
+    final long now = System.nanoTime();
+    phases.put(name, now - start);
+    return now;
+  }
+
+  /**
+   * Record a count for the current round.
+   */
+  void count(final String name, final long value) {
+    if (enabled) {
+      counts.put(name, value);
+    }
+  }
+
+  /**
+   * Record a count for the whole compilation.
+   */
+  void total(final String name, final long value) {
+    if (enabled) {
+      totals.put(name, value);
+    }
+  }
+
+  /**
+   * Finish the current round, which began at {@code start}.
+   */
+  void endRound(final long start) {
+    if (!enabled) {
+      return;
+    }
+    final Map<String, Object> round = Maps.newLinkedHashMap();
+    round.put("round", rounds.size() + 1);
+    round.put("nanos", System.nanoTime() - start);
+    round.put("phaseNanos", phases);
+    round.put("counts", counts);
+    rounds.add(round);
+    phases = Maps.newLinkedHashMap();
+    counts = Maps.newLinkedHashMap();
+  }
+
+  /**
+   * The stream, counting the bytes written to it as the given output, if enabled.
+   */
+  OutputStream countBytes(final String output, final OutputStream out) {
+    if (!enabled) {
+      return out;
+    }
+    final CountingOutputStream counting = new CountingOutputStream(out);
+    outputs.put(output, counting);
+    return counting;
+  }
+
+  /**
+   * Everything recorded so far, for writing out as JSON.
+   */
+  Map<String, Object> toJson() {
+    final Map<String, Long> bytesWritten = Maps.newLinkedHashMap();
+    for (final Map.Entry<String, CountingOutputStream> entry : outputs.entrySet()) {
+      bytesWritten.put(entry.getKey(), entry.getValue().getCount());
+    }
+    return ImmutableMap.<String, Object>of(
+        "rounds", rounds,
+        "totals", totals,
+        "bytesWritten", bytesWritten);
+  }
+}
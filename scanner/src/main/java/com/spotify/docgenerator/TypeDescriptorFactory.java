@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+
+/**
+ * Makes {@link TypeDescriptor}s, handing out one shared instance per distinct type, so the same
+ * {@code List<String>} seen a thousand times is built (and its name computed) only once.
+ */
+class TypeDescriptorFactory {
+  private static final JfrEventType MAKE_EVENT = new JfrEventType(
+      "com.spotify.docgenerator.MakeTypeDescriptor", "Make Type Descriptor", "Processor",
+      "depth");
+
+  private final Types types;
+  private final Interner<TypeDescriptor> interner = Interners.newStrongInterner();
+  private final Map<String, TypeDescriptor> plainTypes = Maps.newHashMap();
+  private final Map<Element, String> erasedNames = Maps.newHashMap();
+  private final Map<String, TypeElement> declaredTypes = Maps.newHashMap();
+  private int built;
+
+  TypeDescriptorFactory(final Types types) {
+    this.types = types;
+  }
+
+  /**
+   * Make a {@link TypeDescriptor} by examining the {@link TypeMirror} and recursively looking
+   * at the generic arguments to the type (if they exist).
+   */
+  TypeDescriptor make(final TypeMirror type) {
+    return make(type, 0);
+  }
+
+  private TypeDescriptor make(final TypeMirror type, final int depth) {
+    try (final JfrEventType.Span span = MAKE_EVENT.begin(type)) {
+      span.setValue(depth);
+      if (type.getKind() != TypeKind.DECLARED) {
+        return plainType(type.toString());
+      }
+      final DeclaredType dt = (DeclaredType) type;
+
+      final String plainType = erasedName(dt);
+      final List<? extends TypeMirror> typeArguments = dt.getTypeArguments();
+      if (typeArguments.isEmpty()) {
+        return plainType(plainType);
+      }
+      final List<TypeDescriptor> typeArgumentsList = Lists.newArrayList();
+      for (final TypeMirror arg : typeArguments) {
+        typeArgumentsList.add(make(arg, depth + 1));
+      }
+      built++;
+      return interner.intern(new TypeDescriptor(plainType, typeArgumentsList));
+    }
+  }
+
+  private TypeDescriptor plainType(final String name) {
+    final TypeDescriptor descriptor = plainTypes.get(name);
+    if (descriptor != null) {
+      return descriptor;
+    }
+    built++;
+    final TypeDescriptor newDescriptor = interner.intern(
+        new TypeDescriptor(name, ImmutableList.<TypeDescriptor>of()));
+    plainTypes.put(name, newDescriptor);
+    return newDescriptor;
+  }
+
+  /**
+   * The erasure of a declared type only depends on its element, so remember it per element.
+   */
+  private String erasedName(final DeclaredType dt) {
+    final Element element = dt.asElement();
+    final String name = erasedNames.get(element);
+    if (name != null) {
+      return name;
+    }
+    final String newName = types.erasure(dt).toString();
+    erasedNames.put(element, newName);
+    declaredTypes.put(newName, (TypeElement) element);
+    return newName;
+  }
+
+  /**
+   * How many descriptors were built, including those that turned out to duplicate an existing
+   * one and were dropped for it.
+   */
+  int getBuiltCount() {
+    return built;
+  }
+
+  /**
+   * The element of a declared type this factory has made a descriptor for, by descriptor name,
+   * or null if it hasn't seen one by that name.
+   */
+  TypeElement getDeclaredType(final String name) {
+    return declaredTypes.get(name);
+  }
+}
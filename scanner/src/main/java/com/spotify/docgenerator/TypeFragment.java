@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.docgenerator;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * What the processor found in a single originating type: the {@link TransferClass} and/or the
+ * {@link ResourceClass} it contributes.  Stored by {@link FragmentStore} between compilations.
+ */
+class TypeFragment {
+  private final String name;
+  private final TransferClass transferClass;
+  private final ResourceClass resourceClass;
+
+  public TypeFragment(@JsonProperty("name") String name,
+                      @JsonProperty("transferClass") TransferClass transferClass,
+                      @JsonProperty("resourceClass") ResourceClass resourceClass) {
+    this.name = name;
+    this.transferClass = transferClass;
+    this.resourceClass = resourceClass;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public TransferClass getTransferClass() {
+    return transferClass;
+  }
+
+  public ResourceClass getResourceClass() {
+    return resourceClass;
+  }
+}